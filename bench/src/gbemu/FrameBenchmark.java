@@ -0,0 +1,65 @@
+package gbemu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gbemu.bench.Roms;
+import gbemu.cpu.UnsupportedOpcodeException;
+
+/**
+ * Measures whole frames of a headless Emulator. The setup boots a
+ * generated ROM past the boot sequence, the benchmark then runs the ROM's
+ * main loop, which copies and fills memory and does some arithmetic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FrameBenchmark {
+
+	// frames the boot sequence takes, with some margin
+	private static final int BOOT_FRAMES = 120;
+
+	// 0150: LD DE,4000, LD HL,C000, LD B,00
+	// 0158: LD A,(DE), INC DE, LD (HL+),A, DEC B, JR NZ,0158
+	// 015E: LD HL,9FFF, LD A,33
+	// 0163: LD (HL-),A, BIT 7,H, JR NZ,0163
+	// 0168: LD BC,0100
+	// 016B: ADD A,C, XOR B, DEC BC, LD A,B, OR C, JR NZ,016B
+	// 0172: JP 0150
+	private static final int[] PROGRAM = { 0x11, 0x00, 0x40, 0x21, 0x00,
+			0xC0, 0x06, 0x00, 0x1A, 0x13, 0x22, 0x05, 0x20, 0xFA, 0x21, 0xFF,
+			0x9F, 0x3E, 0x33, 0x32, 0xCB, 0x7C, 0x20, 0xFB, 0x01, 0x00, 0x01,
+			0x81, 0xA8, 0x0B, 0x78, 0xB1, 0x20, 0xF9, 0xC3, 0x50, 0x01 };
+
+	@Param({ "1", "4" })
+	public int frameSkip;
+
+	private Emulator emulator;
+
+	@Setup
+	public void boot() throws UnsupportedOpcodeException {
+		emulator = new Emulator(Roms.withProgram(PROGRAM));
+		emulator.setTurbo(true, frameSkip);
+		emulator.runFrames(BOOT_FRAMES);
+	}
+
+	@Benchmark
+	public long frame() throws UnsupportedOpcodeException {
+		emulator.runFrames(1);
+		return emulator.getInstructionCount();
+	}
+}
@@ -0,0 +1,24 @@
+package gbemu.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like the JMH main class, but always with the gc
+ * profiler so every result comes with its allocations per operation.
+ * Further JMH options, e.g. a benchmark filter, are passed through.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		CommandLineOptions cmdOptions = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(cmdOptions)
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+
+}
@@ -0,0 +1,74 @@
+package gbemu.bench;
+
+import gbemu.cpu.CPU;
+import gbemu.cpu.InterruptController;
+import gbemu.cpu.UnsupportedOpcodeException;
+import gbemu.graphics.GPU;
+import gbemu.memory.Memory;
+import gbemu.timing.Scheduler;
+
+/**
+ * Builds small ROM images for the benchmarks, so they do not depend on
+ * commercial ROMs.
+ */
+public class Roms {
+
+	public static final int SIZE = 0x8000;
+	/** Address the program passed to withProgram starts at. */
+	public static final int PROGRAM = 0x150;
+
+	private static final int LOGO = 0x104;
+	private static final int LOGO_LENGTH = 48;
+	private static final int BIOS_LOGO = 0xA8;
+
+	/**
+	 * Returns a 32 KiB ROM with a valid header that jumps to program, placed
+	 * at 0x150. The rest of the ROM holds a byte pattern that reads and
+	 * copies can work on.
+	 */
+	public static byte[] withProgram(int... program) {
+		byte[] rom = new byte[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			rom[i] = (byte) (i * 7 + 3);
+		}
+		// the boot ROM locks up unless the logo and header checksum match
+		Memory memory = createMemory();
+		for (int i = 0; i < LOGO_LENGTH; i++) {
+			rom[LOGO + i] = (byte) memory.readByte(BIOS_LOGO + i);
+		}
+		rom[0x100] = 0x00;
+		rom[0x101] = (byte) 0xC3;
+		rom[0x102] = (byte) PROGRAM;
+		rom[0x103] = (byte) (PROGRAM >>> 8);
+		for (int i = 0x134; i < 0x150; i++) {
+			rom[i] = 0;
+		}
+		int checksum = 0;
+		for (int i = 0x134; i < 0x14D; i++) {
+			checksum = checksum - rom[i] - 1;
+		}
+		rom[0x14D] = (byte) checksum;
+		for (int i = 0; i < program.length; i++) {
+			rom[PROGRAM + i] = (byte) program[i];
+		}
+		return rom;
+	}
+
+	private static Memory createMemory() {
+		Scheduler scheduler = new Scheduler();
+		InterruptController interrupts = new InterruptController();
+		return new Memory(new GPU(scheduler, interrupts), scheduler,
+				interrupts);
+	}
+
+	/**
+	 * Runs the boot ROM until it hands control to the cart.
+	 */
+	public static void boot(CPU cpu, Memory memory)
+			throws UnsupportedOpcodeException {
+		while (memory.isInBios()) {
+			cpu.step();
+		}
+	}
+
+}
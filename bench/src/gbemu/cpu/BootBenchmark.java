@@ -0,0 +1,55 @@
+package gbemu.cpu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gbemu.graphics.GPU;
+import gbemu.memory.Memory;
+import gbemu.timing.Scheduler;
+
+/**
+ * Measures the time per instruction while the CPU runs the boot sequence in
+ * Memory.bios from power on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BootBenchmark {
+
+	private static final int INSTRUCTIONS = 2000000;
+
+	private CPU cpu;
+
+	@Setup(Level.Invocation)
+	public void powerOn() {
+		Scheduler scheduler = new Scheduler();
+		InterruptController interrupts = new InterruptController();
+		GPU gpu = new GPU(scheduler, interrupts);
+		cpu = new CPU(new Memory(gpu, scheduler, interrupts), scheduler,
+				interrupts);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(INSTRUCTIONS)
+	public long boot() throws UnsupportedOpcodeException {
+		while (cpu.getInstructionCount() < INSTRUCTIONS) {
+			cpu.step();
+		}
+		return cpu.getInstructionCount();
+	}
+}
@@ -0,0 +1,95 @@
+package gbemu.cpu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gbemu.bench.Roms;
+import gbemu.graphics.GPU;
+import gbemu.memory.Cart;
+import gbemu.memory.Memory;
+import gbemu.timing.Scheduler;
+
+/**
+ * Measures the time the CPU needs to fetch, decode and execute one
+ * instruction for a few instruction mixes. Each mix is an endless loop in
+ * a generated ROM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+	private static final int STEPS = 1000;
+
+	// INC A, ADD A,B, SUB C, AND D, OR E, XOR H, CP L, DEC B, INC C
+	private static final int[] ALU = { 0x3C, 0x80, 0x91, 0xA2, 0xB3, 0xAC,
+			0xBD, 0x05, 0x0C, 0x18, 0xF5 };
+	// LD HL,C000, LD A,(HL+), LD (HL-),A, LD B,(HL), LD (HL),C, LD D,B,
+	// LD E,D, LD A,(C010), LD (C011),A, PUSH BC, POP DE
+	private static final int[] LOAD = { 0x21, 0x00, 0xC0, 0x2A, 0x32, 0x46,
+			0x71, 0x50, 0x5A, 0xFA, 0x10, 0xC0, 0xEA, 0x11, 0xC0, 0xC5, 0xD1,
+			0x18, 0xED };
+	// CALL 0160, XOR A, JR Z,+0, JR NZ,+0, JP NZ,0000, JP 0150, 0160: RET
+	private static final int[] BRANCH = { 0xCD, 0x60, 0x01, 0xAF, 0x28,
+			0x00, 0x20, 0x00, 0xC2, 0x00, 0x00, 0xC3, 0x50, 0x01, 0x00, 0x00,
+			0xC9 };
+	// SWAP A, RLC B, RR C, SLA D, SRL E, BIT 0,H, SET 1,L, RES 1,A
+	private static final int[] CB = { 0xCB, 0x37, 0xCB, 0x00, 0xCB, 0x19,
+			0xCB, 0x22, 0xCB, 0x3B, 0xCB, 0x44, 0xCB, 0xCD, 0xCB, 0x8F, 0x18,
+			0xEE };
+
+	@Param({ "alu", "load", "branch", "cb" })
+	public String mix;
+
+	private CPU cpu;
+
+	@Setup
+	public void boot() throws UnsupportedOpcodeException {
+		Scheduler scheduler = new Scheduler();
+		InterruptController interrupts = new InterruptController();
+		GPU gpu = new GPU(scheduler, interrupts);
+		Memory memory = new Memory(gpu, scheduler, interrupts);
+		memory.loadCart(new Cart(Roms.withProgram(program(mix))));
+		cpu = new CPU(memory, scheduler, interrupts);
+		Roms.boot(cpu, memory);
+	}
+
+	private static int[] program(String mix) {
+		switch (mix) {
+		case "alu":
+			return ALU;
+		case "load":
+			return LOAD;
+		case "branch":
+			return BRANCH;
+		case "cb":
+			return CB;
+		default:
+			throw new IllegalArgumentException("Unknown mix " + mix);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(STEPS)
+	public long step() throws UnsupportedOpcodeException {
+		for (int i = 0; i < STEPS; i++) {
+			cpu.step();
+		}
+		return cpu.getInstructionCount();
+	}
+}
@@ -0,0 +1,68 @@
+package gbemu.graphics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gbemu.cpu.InterruptController;
+import gbemu.timing.Scheduler;
+
+/**
+ * Measures the GPU on its own. There is no GPU.tick, the GPU is driven by
+ * its mode events, so the benchmarks advance the scheduler by one scan line
+ * (including drawLine) or one whole frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GpuBenchmark {
+
+	private static final int LINE = 456;
+	private static final int FRAME = 70224;
+
+	@Param({ "1", "4" })
+	public int frameSkip;
+
+	private Scheduler scheduler;
+
+	@Setup
+	public void setUp() {
+		scheduler = new Scheduler();
+		GPU gpu = new GPU(scheduler, new InterruptController());
+		gpu.setFrameSkip(frameSkip);
+		// some tile data and a map using all tiles, so lines are not blank
+		for (int addr = 0x8000; addr < 0x9800; addr++) {
+			gpu.writeByte(addr, addr * 13 & 0xFF);
+		}
+		for (int addr = 0x9800; addr < 0xA000; addr++) {
+			gpu.writeByte(addr, addr & 0xFF);
+		}
+		gpu.writeByte(0xFF40, 0x91);
+		gpu.writeByte(0xFF47, 0xE4);
+	}
+
+	@Benchmark
+	public long line() {
+		scheduler.advance(LINE);
+		return scheduler.now();
+	}
+
+	@Benchmark
+	public long frame() {
+		scheduler.advance(FRAME);
+		return scheduler.now();
+	}
+}
@@ -0,0 +1,75 @@
+package gbemu.memory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gbemu.bench.Roms;
+
+/**
+ * Measures loading a cart from a byte array and from a file, and switching
+ * it into a Memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+	// ROM size in KiB
+	@Param({ "32", "1024" })
+	public int size;
+
+	private byte[] rom;
+	private File file;
+	private Memory memory;
+
+	@Setup
+	public void setUp() throws IOException {
+		byte[] program = Roms.withProgram();
+		rom = new byte[size * 1024];
+		for (int i = 0; i < rom.length; i++) {
+			rom[i] = program[i % program.length];
+		}
+		file = File.createTempFile("bench", ".gb");
+		Files.write(file.toPath(), rom);
+		memory = MemoryBenchmark.createMemory();
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public Cart fromBytes() {
+		return new Cart(rom);
+	}
+
+	@Benchmark
+	public Cart fromFile() throws IOException {
+		return new Cart(file.getPath());
+	}
+
+	@Benchmark
+	public Memory load() {
+		memory.loadCart(new Cart(rom));
+		return memory;
+	}
+}
@@ -0,0 +1,119 @@
+package gbemu.memory;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gbemu.bench.Roms;
+import gbemu.cpu.InterruptController;
+import gbemu.graphics.GPU;
+import gbemu.timing.Scheduler;
+
+/**
+ * Measures Memory.readByte and Memory.writeByte for each memory region.
+ * Every invocation accesses SPAN consecutive addresses from the start of
+ * the region.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+
+	private static final int SPAN = 64;
+
+	@State(Scope.Thread)
+	public static class ReadState {
+
+		@Param({ "rom0", "romx", "vram", "wram", "echo", "oam", "hram" })
+		public String region;
+
+		Memory memory;
+		int start;
+
+		@Setup
+		public void setUp() {
+			memory = createMemory();
+			start = start(region);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class WriteState {
+
+		@Param({ "vram", "wram", "echo", "oam", "hram" })
+		public String region;
+
+		Memory memory;
+		int start;
+
+		@Setup
+		public void setUp() {
+			memory = createMemory();
+			start = start(region);
+		}
+	}
+
+	static Memory createMemory() {
+		Scheduler scheduler = new Scheduler();
+		InterruptController interrupts = new InterruptController();
+		Memory memory = new Memory(new GPU(scheduler, interrupts),
+				scheduler, interrupts);
+		memory.loadCart(new Cart(Roms.withProgram()));
+		memory.leaveBios();
+		return memory;
+	}
+
+	static int start(String region) {
+		switch (region) {
+		case "rom0":
+			return Roms.PROGRAM;
+		case "romx":
+			return 0x4000;
+		case "vram":
+			return 0x8000;
+		case "wram":
+			return 0xC000;
+		case "echo":
+			return 0xE000;
+		case "oam":
+			return 0xFE00;
+		case "hram":
+			return 0xFF80;
+		default:
+			throw new IllegalArgumentException("Unknown region " + region);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SPAN)
+	public int readByte(ReadState state) {
+		Memory memory = state.memory;
+		int sum = 0;
+		for (int addr = state.start; addr < state.start + SPAN; addr++) {
+			sum += memory.readByte(addr);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SPAN)
+	public void writeByte(WriteState state) {
+		Memory memory = state.memory;
+		for (int addr = state.start; addr < state.start + SPAN; addr++) {
+			memory.writeByte(addr, addr & 0xFF);
+		}
+	}
+}
@@ -1,43 +1,205 @@
 package gbemu;
 
 import java.io.IOException;
-
-import javax.swing.JFrame;
+import java.nio.file.Paths;
 
 import gbemu.cpu.CPU;
-import gbemu.graphics.Display;
+import gbemu.cpu.InterruptController;
+import gbemu.cpu.UnsupportedOpcodeException;
 import gbemu.graphics.GPU;
+import gbemu.graphics.Screen;
 import gbemu.memory.Cart;
+import gbemu.memory.CartRAM;
 import gbemu.memory.Memory;
+import gbemu.memory.RomRegistry;
+import gbemu.timing.FramePacer;
+import gbemu.timing.Scheduler;
 
-public class Emulator {
+/**
+ * A Game Boy with a cartridge inserted. It does not need a display, frames
+ * are only shown if a screen is set. A new emulator runs in turbo mode
+ * without frame skip, interactive front ends turn turbo off to run at the
+ * real speed. Battery backed cart RAM is only saved if a save file is given,
+ * saveFile() names the usual one next to the ROM. Call close() when done to
+ * save the last changes.
+ */
+public class Emulator implements AutoCloseable {
 	private CPU cpu;
-	private Display display;
 	private Memory memory;
 	private GPU gpu;
+	private Scheduler scheduler;
+	private InterruptController interrupts;
+
+	private Cart cart;
+	private CartRAM cartRAM;
+	private Screen screen;
+	private FramePacer pacer;
+	private boolean turbo;
+	private int frameSkip;
+	private boolean strict;
+
+	/**
+	 * Loads a ROM file without saving its cart RAM.
+	 */
+	public Emulator(String romPath) throws IOException {
+		this(romPath, null);
+	}
+
+	/**
+	 * Loads a ROM file and saves battery backed cart RAM to savePath, or not
+	 * at all if savePath is null.
+	 */
+	public Emulator(String romPath, String savePath) throws IOException {
+		this(RomRegistry.get(romPath), savePath);
+	}
+
+	public Emulator(byte[] rom) {
+		this(RomRegistry.get(rom));
+	}
+
+	private Emulator(Cart cart, String savePath) throws IOException {
+		this(cart, savePath != null ? CartRAM.create(cart, Paths
+				.get(savePath)) : CartRAM.create(cart));
+	}
+
+	private Emulator(Cart cart) {
+		this(cart, CartRAM.create(cart));
+	}
+
+	private Emulator(Cart cart, CartRAM cartRAM) {
+		this.cart = cart;
+		this.cartRAM = cartRAM;
+		this.pacer = new FramePacer();
+		turbo = true;
+		frameSkip = 1;
+		powerOn();
+	}
+
+	private void powerOn() {
+		scheduler = new Scheduler();
+		interrupts = new InterruptController();
+		gpu = new GPU(scheduler, interrupts);
+		memory = new Memory(gpu, scheduler, interrupts);
+		memory.loadCart(cart, cartRAM);
+		cpu = new CPU(memory, scheduler, interrupts);
+		cpu.setStrictMemory(strict);
+		cpu.setRegisterValidation(strict);
+		gpu.setScreen(screen);
+		setTurbo(turbo, frameSkip);
+	}
+
+	/**
+	 * Returns the save file next to a ROM file, with the extension .sav.
+	 */
+	public static String saveFile(String romPath) {
+		return romPath.replaceFirst("\\.[^./\\\\]*$", "") + ".sav";
+	}
+
+	/**
+	 * Switches the Game Boy off and on again. The screen and turbo settings
+	 * and the cart RAM are kept.
+	 */
+	public void reset() {
+		powerOn();
+	}
 
-	public Emulator() {
-		this.display = new Display();
-		this.gpu = new GPU(display);
-		this.memory = new Memory(gpu);
-		this.cpu = new CPU(memory, gpu);
+	/**
+	 * In strict mode invalid memory accesses throw an
+	 * IllegalMemoryAccessException and register values out of range an
+	 * IllegalRegisterAccessException, instead of being recorded or wrapped.
+	 * It is kept across reset().
+	 */
+	public void setStrict(boolean strict) {
+		this.strict = strict;
+		cpu.setStrictMemory(strict);
+		cpu.setRegisterValidation(strict);
 	}
 
-	public void start() {
-		JFrame window = new JFrame();
-		window.add(display);
-		window.setSize(160, 144);
-		window.setDefaultCloseOperation(3);
+	public void setScreen(Screen screen) {
+		this.screen = screen;
+		gpu.setScreen(screen);
+	}
 
-		try {
-			memory.loadCart(new Cart("tetris.gb"));
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	/**
+	 * Turbo mode runs as fast as the host allows and only draws every
+	 * frameSkip-th frame. Otherwise emulation is paced to the real frame
+	 * rate.
+	 */
+	public void setTurbo(boolean turbo, int frameSkip) {
+		this.turbo = turbo;
+		this.frameSkip = frameSkip;
+		gpu.setFrameSkip(turbo ? frameSkip : 1);
+		if (turbo) {
+			gpu.setFrameListener(null);
+		} else {
+			pacer.reset();
+			gpu.setFrameListener(pacer::sync);
 		}
+	}
+
+	/**
+	 * Runs until the given number of frames has been completed.
+	 */
+	public void runFrames(int frames) throws UnsupportedOpcodeException {
+		long end = gpu.getFrameCount() + frames;
+		while (gpu.getFrameCount() < end) {
+			cpu.step();
+		}
+	}
 
-		window.setVisible(true);
+	/**
+	 * Runs for at least the given number of machine cycles. The last
+	 * instruction may end a few cycles later.
+	 */
+	public void runCycles(long cycles) throws UnsupportedOpcodeException {
+		long end = scheduler.now() + cycles;
+		while (scheduler.now() < end) {
+			cpu.step();
+		}
+	}
 
+	/**
+	 * Runs until the CPU stops, reporting errors on the console.
+	 */
+	public void run() {
 		cpu.run();
 	}
+
+	/**
+	 * Returns the pixels of the current frame, see GPU.getFrameBuffer().
+	 */
+	public int[] getFrameBuffer() {
+		return gpu.getFrameBuffer();
+	}
+
+	public long getFrameCount() {
+		return gpu.getFrameCount();
+	}
+
+	public long getInstructionCount() {
+		return cpu.getInstructionCount();
+	}
+
+	public long getCycles() {
+		return scheduler.now();
+	}
+
+	/**
+	 * Returns the first invalid memory access since power on, or null if
+	 * there was none.
+	 */
+	public String getMemoryFault() {
+		return memory.hasFault() ? memory.getFaultMessage() : null;
+	}
+
+	/**
+	 * Saves the cart RAM and releases the save file. The emulator must not
+	 * be run afterwards.
+	 */
+	@Override
+	public void close() {
+		if (cartRAM != null) {
+			cartRAM.close();
+		}
+	}
 }
@@ -1,8 +1,26 @@
 package gbemu;
 
+import java.io.IOException;
+
+import javax.swing.JFrame;
+
+import gbemu.graphics.Display;
+
 public class Main {
-	public static void main(String[] args) {
-		Emulator emu = new Emulator();
-		emu.start();
+	public static void main(String[] args) throws IOException {
+		String rom = args.length > 0 ? args[0] : "tetris.gb";
+		Emulator emu = new Emulator(rom, Emulator.saveFile(rom));
+
+		Display display = new Display();
+		JFrame window = new JFrame();
+		window.add(display);
+		window.setSize(160, 144);
+		window.setDefaultCloseOperation(3);
+		emu.setScreen(display);
+		emu.setTurbo(false, 1);
+
+		window.setVisible(true);
+
+		emu.run();
 	}
 }
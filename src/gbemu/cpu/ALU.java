@@ -1,199 +1,202 @@
 package gbemu.cpu;
 
-import java.util.BitSet;
-
 public class ALU {
 
-	private final int ZERO = 7;
-	private final int SUB = 6;
-	private final int HC = 5;
-	private final int C = 4;
-
-	private BitSet flags;
+	private static final int ZERO = 0x80;
+	private static final int SUB = 0x40;
+	private static final int HC = 0x20;
+	private static final int C = 0x10;
+
+	// Flags are evaluated lazily. Most operations only remember their
+	// operands and the unmasked result, the flag byte is computed when it is
+	// actually read. For a pending operation, f only holds the flags that the
+	// operation leaves untouched.
+	private static final int NONE = 0;
+	private static final int ADD = 1;
+	private static final int SUBTRACT = 2;
+	private static final int INC = 3;
+	private static final int DEC = 4;
+	private static final int ADD_WORD = 5;
+	private static final int INC_WORD = 6;
+	private static final int DEC_WORD = 7;
+	private static final int SHIFT = 8;
+	private static final int AND = 9;
+	private static final int LOGIC = 10;
+
+	private int f;
+	private int op;
+	private int operand1;
+	private int operand2;
+	private int result;
 
 	protected ALU() {
-		flags = new BitSet(7);
+		f = 0;
+		op = NONE;
+	}
+
+	private int flags() {
+		if (op != NONE) {
+			f |= evaluate();
+			op = NONE;
+		}
+		return f;
+	}
+
+	private int evaluate() {
+		switch (op) {
+		case ADD:
+		case INC:
+			return zero(result & 0xFF)
+					| ((operand1 ^ operand2 ^ result) & 0x10) << 1
+					| (op == ADD ? (result & 0x100) >>> 4 : 0);
+		case SUBTRACT:
+		case DEC:
+			return zero(result & 0xFF) | SUB
+					| ((operand1 ^ operand2 ^ result) & 0x10) << 1
+					| (op == SUBTRACT ? (result & 0x100) >>> 4 : 0);
+		case ADD_WORD:
+			return ((operand1 ^ operand2 ^ result) & 0x1000) >>> 7
+					| (result & 0x10000) >>> 12;
+		case INC_WORD:
+			return zero(result & 0xFFFF)
+					| ((operand1 ^ operand2 ^ result) & 0x1000) >>> 7;
+		case DEC_WORD:
+			return zero(result & 0xFFFF) | SUB
+					| ((operand1 ^ operand2 ^ result) & 0x1000) >>> 7;
+		case SHIFT:
+			return zero(result & 0xFF) | (result & 0x100) >>> 4;
+		case AND:
+			return zero(result) | HC;
+		case LOGIC:
+			return zero(result);
+		default:
+			return 0;
+		}
+	}
+
+	private int carry() {
+		switch (op) {
+		case ADD:
+		case SUBTRACT:
+		case SHIFT:
+			return (result & 0x100) >>> 4;
+		case ADD_WORD:
+			return (result & 0x10000) >>> 12;
+		case AND:
+		case LOGIC:
+			return 0;
+		default:
+			return f & C;
+		}
+	}
+
+	private static int zero(int value) {
+		return value == 0 ? ZERO : 0;
+	}
+
+	private int pending(int op, int operand1, int operand2, int result) {
+		this.op = op;
+		this.operand1 = operand1;
+		this.operand2 = operand2;
+		this.result = result;
+		return result;
 	}
 
 	public int getFlagRegister() {
-		int zero = (flags.get(ZERO) ? 1 : 0);
-		int sub = (flags.get(SUB) ? 1 : 0);
-		int hc = (flags.get(SUB) ? 1 : 0);
-		int c = (flags.get(C) ? 1 : 0);
-		return zero << 7 | sub << 6 | hc << 5 | c << 4;
+		return flags();
 	}
 
 	public void setFlagRegister(int value) {
-		flags.set(ZERO, ((value & 0x80) == 0x80));
-		flags.set(SUB, ((value & 0x40) == 0x40));
-		flags.set(HC, ((value & 0x20) == 0x20));
-		flags.set(C, ((value & 0x10) == 0x10));
-
+		f = value & 0xF0;
+		op = NONE;
 	}
 
 	public int incByte(int value) {
-		flags.set(SUB, false);
-		int result = (value + 1) & 0xFF;
-		flags.set(ZERO, result == 0);
-		int hc = ((value & 0x0F) + 1) & 0x10;
-		flags.set(HC, hc == 0x10);
-		return result;
+		f = carry();
+		return pending(INC, value, 1, value + 1) & 0xFF;
 	}
 
 	public int incWord(int value) {
-		flags.set(SUB, false);
-		int result = (value + 1) & 0xFFFF;
-		flags.set(ZERO, result == 0);
-		int hc = ((value & 0x0FFF) + 1) & 0x1000;
-		flags.set(HC, hc == 0x1000);
-		return result;
+		f = carry();
+		return pending(INC_WORD, value, 1, value + 1) & 0xFFFF;
 	}
 
 	public int decByte(int value) {
-		flags.set(SUB, true);
-
-		int result = (value - 1) & 0xFF;
-		flags.set(ZERO, result == 0);
-		int hc = ((value & 0x0F) - 1) & 0x10;
-		flags.set(HC, hc == 0x10);
-		return result;
+		f = carry();
+		return pending(DEC, value, 1, value - 1) & 0xFF;
 	}
 
 	public int decWord(int value) {
-		flags.set(SUB, true);
-		int result = (value - 1) & 0xFFFF;
-		flags.set(ZERO, result == 0);
-		int hc = ((value & 0x0FFF) - 1) & 0x1000;
-		flags.set(HC, hc == 0x1000);
-		return result;
+		f = carry();
+		return pending(DEC_WORD, value, 1, value - 1) & 0xFFFF;
 	}
 
-	// 1001 1010 << 0001 0011 0100
-	// 0010 1011 << 0 0101 0110
 	public int rotateLeftCarry(int value) {
-		flags.set(C, (value & 0x80) == 0x80);
-		int result = value << 1;
-		if (wasCarry()) {
-			result |= 0x01;
-		}
-		result &= 0xFF;
-		flags.set(ZERO, result == 0);
-		flags.set(SUB, false);
-		flags.set(HC, false);
-		return result;
+		f = 0;
+		int bit = (value & 0x80) >>> 7;
+		return pending(SHIFT, value, 0, value << 1 | bit) & 0xFF;
 	}
 
 	public int rotateRightCarry(int value) {
-		int bit = (value & 0x01);
-		flags.set(C, bit == 1);
-		int result = value >>> 1;
-		if (bit == 1) {
-			result = result | 0x80;
-		}
-		flags.set(ZERO, result == 0);
-		flags.set(SUB, false);
-		flags.set(HC, false);
-		return result;
+		f = 0;
+		int bit = value & 0x01;
+		return pending(SHIFT, value, 0, value >>> 1 | bit << 7 | bit << 8)
+				& 0xFF;
 	}
 
 	public int rotateLeft(int value) {
-		boolean carry = wasCarry();
-		flags.set(C, (value & 0x80) == 0x80);
-		int tmp = value << 1;
-		int result = tmp & 0xFF;
-		if (carry) {
-			result |= 0x01;
-		}
-		flags.set(ZERO, result == 0);
-		flags.set(SUB, false);
-		flags.set(HC, false);
-		return result;
+		int carry = carry() >>> 4;
+		f = 0;
+		return pending(SHIFT, value, 0, value << 1 | carry) & 0xFF;
 	}
 
 	public int rotateRight(int value) {
-		boolean carry = wasCarry();
-		int bit = (value & 0x01);
-		flags.set(C, bit == 1);
-		int result = value >>> 1;
-		if (carry) {
-			result = result | 0x80;
-		}
-		flags.set(ZERO, result == 0);
-		flags.set(SUB, false);
-		flags.set(HC, false);
-		return result;
+		int carry = carry() >>> 4;
+		f = 0;
+		int bit = value & 0x01;
+		return pending(SHIFT, value, 0, value >>> 1 | carry << 7 | bit << 8)
+				& 0xFF;
 	}
 
 	public int addWords(int value1, int value2) {
-		flags.set(SUB, false);
-		int result = value1 + value2;
-		if (result > 0xFFFF) {
-			flags.set(C, true);
-		}
-		int hc = ((value1 & 0x0FFF) + (value2 & 0x0FFF)) & 0x1000;
-		flags.set(HC, hc == 0x1000);
-		return result & 0xFFFF;
+		f = flags() & ZERO;
+		return pending(ADD_WORD, value1, value2, value1 + value2) & 0xFFFF;
 	}
 
 	public int addByteWithCarry(int value1, int value2) {
-		int carry = 0;
-		if (wasCarry()) {
-			carry = 1;
-		}
-		int result = (value1 + value2 + carry) & 0xFF;
-		flags.set(SUB, false);
-		flags.set(ZERO, result == 0);
-		int hc = (value1 & 0x0F + value2 & 0x0F + carry) & 0x10;
-		flags.set(HC, hc == 0x10);
-		return result;
+		int carry = carry() >>> 4;
+		f = 0;
+		return pending(ADD, value1, value2, value1 + value2 + carry) & 0xFF;
 	}
 
 	public int subByteWithCarry(int value1, int value2) {
-		int carry = 0;
-		if (wasCarry()) {
-			carry = 1;
-		}
-		int result = (value1 - value2 - carry) & 0xFF;
-		flags.set(SUB, true);
-		flags.set(ZERO, result == 0);
-		int hc = (value1 & 0x0F - value2 & 0x0F - carry) & 0x10;
-		flags.set(HC, hc == 0x10);
-		return result;
-
+		int carry = carry() >>> 4;
+		f = 0;
+		return pending(SUBTRACT, value1, value2, value1 - value2 - carry)
+				& 0xFF;
 	}
 
 	public int addByte(int value1, int value2) {
-		int result = (value1 + value2) & 0xFF;
-		flags.set(SUB, false);
-		flags.set(ZERO, result == 0);
-		int hc = (value1 & 0x0F + value2 & 0x0F) & 0x10;
-		flags.set(HC, hc == 0x10);
-		return result;
+		f = 0;
+		return pending(ADD, value1, value2, value1 + value2) & 0xFF;
 	}
 
 	public int subByte(int value1, int value2) {
-		int result = (value1 - value2) & 0xFF;
-		flags.set(SUB, true);
-		flags.set(ZERO, result == 0);
-		int hc = (value1 & 0x0F - value2 & 0x0F) & 0x10;
-		flags.set(HC, hc == 0x10);
-		return result;
+		f = 0;
+		return pending(SUBTRACT, value1, value2, value1 - value2) & 0xFF;
 	}
 
 	public void compare(int value1, int value2) {
-		int result = (value1 - value2) & 0xFF;
-		flags.set(SUB, true);
-		flags.set(ZERO, result == 0);
-		int hc = (value1 & 0x0F - value2 & 0x0F) & 0x10;
-		flags.set(HC, hc == 0x10);
+		f = 0;
+		pending(SUBTRACT, value1, value2, value1 - value2);
 	}
 
 	public boolean wasZero() {
-		return flags.get(ZERO);
+		return (flags() & ZERO) != 0;
 	}
 
 	public boolean wasCarry() {
-		return flags.get(C);
+		return carry() != 0;
 	}
 
 	public int BCCTransform(int value) {
@@ -202,91 +205,61 @@ public class ALU {
 	}
 
 	public int complement(int value) {
-		flags.set(SUB, true);
-		flags.set(HC, true);
+		f = flags() | SUB | HC;
 		return (~value) & 0xFF;
 	}
 
 	public int and(int value1, int value2) {
-		flags.set(C, false);
-		flags.set(SUB, false);
-		flags.set(HC, true);
-		int result = value1 & value2;
-		flags.set(ZERO, result == 0);
-		return result;
+		f = 0;
+		return pending(AND, value1, value2, value1 & value2);
 	}
 
 	public int xor(int value1, int value2) {
-		flags.clear();
-		int result = value1 ^ value2;
-		flags.set(ZERO, result == 0);
-		return result;
+		f = 0;
+		return pending(LOGIC, value1, value2, value1 ^ value2);
 	}
 
 	public int or(int value1, int value2) {
-		flags.clear();
-		int result = value1 | value2;
-		flags.set(ZERO, result == 0);
-		return result;
+		f = 0;
+		return pending(LOGIC, value1, value2, value1 | value2);
 	}
 
 	public int shiftLeftSigned(int value) {
-		int sign = value & 0x80;
-		flags.set(C, sign == 0x80);
-		flags.set(SUB, false);
-		flags.set(HC, false);
-		int result = (value << 1) & 0xFF;
-		flags.set(ZERO, result == 0);
-		return result;
+		f = 0;
+		return pending(SHIFT, value, 0, value << 1) & 0xFF;
 	}
 
 	public int shiftRightSigned(int value) {
-		boolean sign = (value & 0x80) == 0x80;
-		int zero = value & 0x01;
-		flags.set(C, zero == 1);
-		flags.set(HC, false);
-		flags.set(SUB, false);
-		int result = (value >>> 1);
-		if(sign){
-			result |= 0x80;
-		}
-		flags.set(ZERO, result == 0);
-		return result;
-
+		f = 0;
+		int bit = value & 0x01;
+		return pending(SHIFT, value, 0,
+				value >>> 1 | value & 0x80 | bit << 8) & 0xFF;
 	}
 
 	public int shiftRight(int value) {
-		flags.set(HC, false);
-		flags.set(SUB, false);
-		int zero = value & 0x01;
-		flags.set(C, zero == 1);
-		int result = value >>> 1;
-		flags.set(ZERO, result == 0);
-		return result;
+		f = 0;
+		int bit = value & 0x01;
+		return pending(SHIFT, value, 0, value >>> 1 | bit << 8) & 0xFF;
 	}
 
 	public int swap(int value) {
 		int n1 = value & 0xF0;
 		int n2 = value & 0x0F;
-		flags.clear();
-		int result = n2 << 8 | n1 >>> 8;
-		flags.set(ZERO, result == 0);
-		return result;
-
+		f = 0;
+		return pending(LOGIC, value, 0, n2 << 8 | n1 >>> 8);
 	}
 
 	public void setCarry() {
-		flags.set(C);
+		f = flags() | C;
 	}
 
 	public void clearCarry() {
-		flags.set(C, false);
+		f = flags() & ~C;
 	}
 
 	public void bitTest(int bit, int value) {
-		flags.set(HC, true);
-		flags.set(SUB, false);
-		flags.set(ZERO, (value & (1 << bit)) == 0);
+		f = carry() | HC | zero(value & (1 << bit));
+		op = NONE;
 	}
 
 	public int resetBit(int bit, int value) {
@@ -298,7 +271,8 @@ public class ALU {
 	}
 
 	public void reset() {
-		flags.clear();
+		f = 0;
+		op = NONE;
 	}
-	
+
 }
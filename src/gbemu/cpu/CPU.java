@@ -1,51 +1,88 @@
 package gbemu.cpu;
 
-import java.util.BitSet;
-import java.util.LinkedList;
-
-import gbemu.cpu.Registers.REGISTERS;
-import gbemu.graphics.GPU;
 import gbemu.memory.IllegalMemoryAccessException;
 import gbemu.memory.Memory;
+import gbemu.timing.Scheduler;
 
 public class CPU implements Runnable {
 
+	// register codes as encoded in the low three bits of an opcode
+	private static final int B = 0;
+	private static final int C = 1;
+	private static final int D = 2;
+	private static final int E = 3;
+	private static final int H = 4;
+	private static final int L = 5;
+	private static final int HL = 6;
+	private static final int A = 7;
+
+	// number of instructions executed between two checks of the memory
+	// fault latch
+	private static final int BATCH_SIZE = 64;
+
 	private Registers r;
-	private BitSet flags;
 	private int sp;
 	private int pc;
 	private MMU m;
 	private Clock clock;
 	private ALU alu;
-	private GPU gpu;
+	private Scheduler scheduler;
+	// interrupt master enable
 	private boolean interrupts;
+	private boolean halted;
+	private InterruptController interruptController;
 
 	private int currentAddress;
 	private boolean running;
 
-	private LinkedList<Integer> instructionStack;
-	private LinkedList<Integer> addressStack;
+	private InstructionHistory history;
 	private int opcode = -1;
 
-	public CPU(Memory mem, GPU gpu) {
+	private Operation[] operations;
+	private Operation[] extendedOperations;
+	// operations by DecodedInstruction.handler
+	private Operation[] handlers;
+	private InstructionCache instructionCache;
+	private boolean skipIdleLoops = true;
+	private boolean fuseInstructions = true;
+	// the last idle loop entered, with the polled value and the instruction
+	// count at that time
+	private IdleLoop idleLoop;
+	private int idleValue;
+	private long idleStart;
+	private long instructions;
+
+	public CPU(Memory mem, Scheduler scheduler,
+			InterruptController interruptController) {
 
-		instructionStack = new LinkedList<Integer>();
-		addressStack = new LinkedList<Integer>();
+		history = new InstructionHistory(10);
 		r = new Registers();
 		m = new MMU(mem);
 		clock = new Clock();
 		alu = new ALU();
-		flags = new BitSet(8);
 		interrupts = false;
-		this.gpu = gpu;
+		this.scheduler = scheduler;
+		this.interruptController = interruptController;
+		operations = new Operation[0x100];
+		extendedOperations = new Operation[0x100];
+		initOperations();
+		initExtendedOperations();
+		handlers = new Operation[0x200];
+		System.arraycopy(operations, 0, handlers, 0, 0x100);
+		System.arraycopy(extendedOperations, 0, handlers, 0x100, 0x100);
+		instructionCache = new InstructionCache(m);
+		initSuperinstructions();
 	}
 
 	private void reset() {
 		r.reset();
-		flags.clear();
+		alu.reset();
 		sp = 0;
 		pc = 0;
 		interrupts = false;
+		halted = false;
+		history.clear();
+		instructionCache.clear();
 	}
 
 	@Override
@@ -54,2142 +91,1972 @@ public class CPU implements Runnable {
 
 		while (running) {
 			try {
-				if (pc == 0x100) {
-					m.leaveBios();
-				}
-
-				currentAddress = pc;
-				opcode = nextInstruction();
-
-				if (opcode != 0) {
-					instructionStack.add(opcode);
-					addressStack.add(currentAddress);
+				for (int i = 0; i < BATCH_SIZE && running; i++) {
+					step();
 				}
-				if (instructionStack.size() > 10) {
-					instructionStack.remove();
-				}
-				if (addressStack.size() > 10) {
-					addressStack.remove();
-				}
-				if (currentAddress == 0x284D) {
-					// System.out.print("Stop.");
-				}
-				decode(opcode);
-				if (interrupts) {
-					handleInterrupts();
+				if (m.hasFault()) {
+					System.out.println("Memory violation before address "
+							+ Integer.toHexString(pc));
+					System.out.println(m.getFaultMessage());
+					history.print();
+					m.clearFault();
 				}
 			} catch (UnsupportedOpcodeException e) {
 				System.out.println("Error while executing opcode "
 						+ Integer.toHexString(opcode) + " at address "
 						+ Integer.toHexString(currentAddress));
 				System.out.println(e.getMessage());
-				System.out.println("Previous instructions were:");
-				for (int i = 0; i < instructionStack.size(); i++) {
-					System.out.println("0x"
-							+ Integer.toHexString(addressStack.get(i)) + ": "
-							+ Integer.toHexString(instructionStack.get(i)));
-				}
+				history.print();
 			} catch (IllegalMemoryAccessException
 					| IllegalRegisterAccessException e) {
 				System.out.println("Memory violation while executing opcode "
 						+ Integer.toHexString(opcode) + " at address "
 						+ Integer.toHexString(currentAddress));
 				System.out.println(e.getMessage());
-				System.out.println("Previous instructions were:");
-				for (int i = 0; i < instructionStack.size(); i++) {
-					System.out.println("0x"
-							+ Integer.toHexString(addressStack.get(i)) + ": "
-							+ Integer.toHexString(instructionStack.get(i)));
-				}
+				history.print();
 			}
 		}
 
 	}
 
-	private void handleInterrupts() throws IllegalMemoryAccessException {
-		int a = m.readByte(0xFF0F);
+	/**
+	 * Executes one instruction, or waits for the next event while halted.
+	 */
+	public void step() throws UnsupportedOpcodeException {
+		if (pc == 0x100) {
+			m.leaveBios();
+		}
+
+		if (interruptController.getPending() != 0) {
+			handleInterrupts();
+		} else if (halted) {
+			// nothing can happen before the next event
+			tick(scheduler.cyclesUntilNextEvent());
+			return;
+		}
+
+		DecodedInstruction instruction = instructionCache.get(pc);
+		if (instruction != null && instruction.idleLoop != null
+				&& skipIdleLoops) {
+			skip(instruction.idleLoop);
+		}
+		if (instruction != null && instruction.superinstruction != null
+				&& fuseInstructions && canFuse(instruction.superinstruction)) {
+			execute(instruction.superinstruction);
+		} else if (instruction != null) {
+			execute(instruction);
+		} else {
+			interpret();
+		}
 	}
 
-	private void decode(int opcode) throws UnsupportedOpcodeException,
-			IllegalMemoryAccessException, IllegalRegisterAccessException {
-		switch (opcode) {
-		case 0x00:
-			// NOP
-			break;
-		case 0x01:
-			// LD BC nn
-			r.setWord(REGISTERS.BC, m.readWord(pc));
-			pc += 2;
-			tick(3);
-			break;
-		case 0x02:
-			// LD (BC) A
-			m.writeByte(r.getWord(REGISTERS.BC), r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x03:
-			// INC BC
-			r.setWord(REGISTERS.BC, alu.incWord(r.getWord(REGISTERS.BC)));
-			tick(1);
-			break;
-		case 0x04:
-			// INC B
-			r.set(REGISTERS.B, alu.incByte(r.get(REGISTERS.B)));
-			tick(1);
-			break;
-		case 0x05:
-			// DEC B
-			r.set(REGISTERS.B, alu.decByte(r.get(REGISTERS.B)));
-			tick(1);
-			break;
-		case 0x06:
-			// LD B n
-			r.set(REGISTERS.B, m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x07:
-			// RLC A
-			r.set(REGISTERS.A, alu.rotateLeftCarry(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x08:
-			// LD (nn) SP
-			int address = m.readWord(pc);
-			pc += 2;
-			m.writeWord(address, sp);
-			tick(3);
-			break;
-		case 0x09:
-			// ADD HL BC
-			r.setWord(
-					REGISTERS.HL,
-					alu.addWords(r.getWord(REGISTERS.HL),
-							r.getWord(REGISTERS.BC)));
-			tick(3);
-			break;
-		case 0x0A:
-			// LD A (BC)
-			r.set(REGISTERS.A, m.readByte(r.getWord(REGISTERS.BC)));
-			tick(2);
-			break;
-		case 0x0B:
-			// DEC BC
-			r.setWord(REGISTERS.BC, alu.decWord(r.getWord(REGISTERS.BC)));
-			tick(1);
-			break;
-		case 0x0C:
-			// INC C
-			r.set(REGISTERS.C, alu.incByte(r.get(REGISTERS.C)));
-			tick(1);
-			break;
-		case 0x0D:
-			// DEC C
-			r.set(REGISTERS.C, alu.decByte(r.get(REGISTERS.C)));
-			tick(1);
-			break;
-		case 0x0E:
-			// LD C n
-			r.set(REGISTERS.C, m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x0F:
-			// RRC A
-			r.set(REGISTERS.A, alu.rotateRightCarry(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x10:
-			// STOP
-			running = false;
+	private void interpret() throws UnsupportedOpcodeException {
+		currentAddress = pc;
+		opcode = nextInstruction();
+
+		if (opcode != 0) {
+			history.record(currentAddress, opcode, r, sp);
+		}
+		int operand;
+		switch (InstructionCache.LENGTHS[opcode]) {
+		case 2:
+			operand = m.readByte(pc++);
 			break;
-		case 0x11:
-			// LD DE nn
-			r.setWord(REGISTERS.DE, m.readWord(pc));
+		case 3:
+			operand = m.readWord(pc);
 			pc += 2;
-			tick(3);
-			break;
-		case 0x12:
-			// LD (DE) A
-			m.writeByte(r.getWord(REGISTERS.DE), r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x13:
-			// INC DE
-			r.setWord(REGISTERS.DE, alu.incWord(r.getWord(REGISTERS.DE)));
-			tick(1);
-			break;
-		case 0x14:
-			// INC D
-			r.set(REGISTERS.D, alu.incByte(r.get(REGISTERS.D)));
-			tick(1);
-			break;
-		case 0x15:
-			// DEC D
-			r.set(REGISTERS.D, alu.decByte(r.get(REGISTERS.D)));
-			tick(1);
-			break;
-		case 0x16:
-			// LD D n
-			r.set(REGISTERS.D, m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x17:
-			// RL A
-			r.set(REGISTERS.A, alu.rotateLeft(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x18:
-			// JR n (signed)
-			int foo = (byte) m.readByte(pc++);
-			pc += foo;
-			tick(1);
-			break;
-		case 0x19:
-			// ADD HL DE
-			r.setWord(
-					REGISTERS.HL,
-					alu.addWords(r.getWord(REGISTERS.HL),
-							r.getWord(REGISTERS.DE)));
-			tick(3);
-			break;
-		case 0x1A:
-			// LD A (DE)
-			r.set(REGISTERS.A, m.readByte(r.getWord(REGISTERS.DE)));
-			tick(2);
-			break;
-		case 0x1B:
-			// DEC DE
-			r.setWord(REGISTERS.DE, alu.decWord(r.get(REGISTERS.DE)));
-			tick(1);
-			break;
-		case 0x1C:
-			// INC E
-			r.set(REGISTERS.E, alu.incByte(r.get(REGISTERS.E)));
-			tick(1);
-			break;
-		case 0x1D:
-			// DEC E
-			r.set(REGISTERS.E, alu.decByte(r.get(REGISTERS.E)));
-			tick(1);
-			break;
-		case 0x1E:
-			// LD E n
-			r.set(REGISTERS.E, m.readByte(pc++));
-			tick(2);
 			break;
-		case 0x1F:
-			// RR A
-			r.set(REGISTERS.A, alu.rotateRight(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x20:
-			// JR NZ n
-			int j = (byte) m.readByte(pc++);
-			if (!alu.wasZero()) {
-				pc += j;
+		default:
+			operand = 0;
+		}
+		operations[opcode].execute(operand);
+		instructions++;
+	}
+
+	private void execute(DecodedInstruction instruction)
+			throws UnsupportedOpcodeException {
+		currentAddress = instruction.address;
+		opcode = instruction.opcode;
+		if (opcode != 0) {
+			history.record(currentAddress, opcode, r, sp);
+		}
+		int next = currentAddress + instruction.length;
+		pc = next;
+		Operation operation = handlers[instruction.handler];
+		if (instruction.cycles < 0) {
+			int start = clock.m;
+			operation.execute(instruction.operand);
+			if (pc != next || !InstructionCache.CONDITIONAL[opcode]) {
+				instruction.cycles = clock.m - start;
 			}
-			tick(1);
-			break;
-		case 0x21:
-			// LD HL nn
-			r.setWord(REGISTERS.HL, m.readWord(pc));
-			pc += 2;
-			tick(3);
-			break;
-		case 0x22:
-			// LDI (HL) A
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.A));
-			r.setWord(REGISTERS.HL, alu.incWord(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x23:
-			// INC HL
-			r.setWord(REGISTERS.HL, alu.incWord(r.getWord(REGISTERS.HL)));
-			tick(1);
-			break;
-		case 0x24:
-			// INC H
-			r.set(REGISTERS.H, alu.incByte(r.get(REGISTERS.H)));
-			tick(1);
-			break;
-		case 0x25:
-			// DEC H
-			r.set(REGISTERS.H, alu.decByte(r.get(REGISTERS.H)));
-			tick(1);
-			break;
-		case 0x26:
-			// LD H n
-			r.set(REGISTERS.H, m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x27:
-			// DAA
-			r.set(REGISTERS.A, alu.BCCTransform(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x28:
-			// JR Z n
-			int value = (byte) m.readByte(pc++);
-			if (alu.wasZero()) {
-				pc += value;
+		} else {
+			operation.execute(instruction.operand);
+		}
+		instructions++;
+	}
+
+	/**
+	 * A sequence is only fused if no event can run in the middle of it, so
+	 * that memory and interrupts see the same state as without fusing.
+	 */
+	private boolean canFuse(Superinstruction superinstruction) {
+		int cycles = superinstruction.cycles();
+		return cycles >= 0 && cycles < scheduler.cyclesUntilNextEvent();
+	}
+
+	private void execute(Superinstruction superinstruction)
+			throws UnsupportedOpcodeException {
+		currentAddress = superinstruction.body[0].address;
+		opcode = superinstruction.body[0].opcode;
+		history.record(currentAddress, opcode, r, sp);
+		pc = currentAddress + superinstruction.length;
+
+		if (superinstruction.loops) {
+			LoopOperation loop = instructionCache
+					.getLoopOperation(superinstruction);
+			// run as many iterations as fit before the next event
+			int cycles = superinstruction.cycles();
+			int iterations = loop.execute(superinstruction.operand(),
+					(scheduler.cyclesUntilNextEvent() - 1) / cycles);
+			if (iterations > 0) {
+				tick(iterations * cycles);
+				instructions += iterations * superinstruction.body.length;
+				return;
 			}
-			tick(2);
-			break;
-		case 0x29:
-			// ADD HL HL
-			r.setWord(
-					REGISTERS.HL,
-					alu.addWords(r.getWord(REGISTERS.HL),
-							r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x2A:
-			// LDI A (HL)
-			r.set(REGISTERS.A, m.readByte(r.getWord(REGISTERS.HL)));
-			r.setWord(REGISTERS.HL, alu.incWord(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x2B:
-			// DEC HL
-			r.setWord(REGISTERS.HL, alu.decWord(r.getWord(REGISTERS.HL)));
-			tick(1);
-			break;
-		case 0x2C:
-			// INC L
-			r.set(REGISTERS.L, alu.incByte(r.get(REGISTERS.L)));
-			tick(1);
-			break;
-		case 0x2D:
-			// DEC L
-			r.set(REGISTERS.L, alu.decByte(r.get(REGISTERS.L)));
-			tick(1);
-			break;
-		case 0x2E:
-			// LD L n
-			r.set(REGISTERS.L, m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x2F:
-			// CPL
-			r.set(REGISTERS.L, alu.complement(r.get(REGISTERS.L)));
-			tick(1);
-			break;
-		case 0x30:
-			// JR NC n
-			value = (byte) m.readByte(pc++);
-			if (alu.wasCarry()) {
-				pc += value;
+		}
+		instructionCache.getFusedOperation(superinstruction).execute(
+				superinstruction.operand());
+		instructions += superinstruction.body.length;
+	}
+
+	/**
+	 * Called at the start of an idle loop. If exactly one iteration ran since
+	 * the last call and the polled register still holds the value it read,
+	 * the next iterations would all do the same, so they are skipped up to
+	 * the next scheduled event.
+	 */
+	private void skip(IdleLoop loop) {
+		int value = m.readByte(loop.address);
+		int cycles = loop.cycles();
+		if (loop == idleLoop && value == idleValue && cycles > 0
+				&& instructions == idleStart + loop.body.length) {
+			// stop before the iteration in which the next event runs, so
+			// that its effects are seen at the same instruction as without
+			// skipping
+			int iterations = (scheduler.cyclesUntilNextEvent() - 1) / cycles;
+			if (iterations > 0) {
+				tick(iterations * cycles);
+				instructions += iterations * loop.body.length;
 			}
-			break;
-		case 0x31:
-			// LD SP nn
-			sp = m.readWord(pc);
-			pc += 2;
+		}
+		idleLoop = loop;
+		idleValue = value;
+		idleStart = instructions;
+	}
+
+	public void setFusionEnabled(boolean enabled) {
+		fuseInstructions = enabled;
+	}
+
+	public void setIdleLoopSkipping(boolean enabled) {
+		skipIdleLoops = enabled;
+	}
+
+	public long getInstructionCount() {
+		return instructions;
+	}
+
+	public void setHistoryDepth(int depth) {
+		history.setDepth(depth);
+	}
+
+	public void setStrictMemory(boolean strict) {
+		m.setStrict(strict);
+	}
+
+	public void setRegisterValidation(boolean enabled) {
+		Registers registers = enabled ? new ValidatingRegisters()
+				: new Registers();
+		registers.copyFrom(r);
+		r = registers;
+	}
+
+	int getProgramCounter() {
+		return pc;
+	}
+
+	private void handleInterrupts() {
+		halted = false;
+		if (!interrupts) {
+			return;
+		}
+		interrupts = false;
+		sp -= 2;
+		m.writeWord(sp, pc);
+		pc = interruptController.acknowledge();
+		tick(5);
+	}
+
+	private void initOperations() {
+		Operation removed = operand -> {
+			throw new UnsupportedOpcodeException("Operation with opcode "
+					+ opcode + " is removed. ");
+		};
+		// NOP
+		operations[0x00] = operand -> {
+		};
+		// LD BC nn
+		operations[0x01] = operand -> {
+			r.setBC(operand);
 			tick(3);
-			break;
-		case 0x32:
-			// LDD (HL) A
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.A));
-			r.setWord(REGISTERS.HL, alu.decWord(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x33:
-			sp++;
-			tick(1);
-			break;
-		case 0x34:
-			// INC (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.incByte(m.readByte(r.getWord(REGISTERS.HL))));
+		};
+		// LD (BC) A
+		operations[0x02] = operand -> {
+			m.writeByte(r.getBC(), r.getA());
+			tick(2);
+		};
+		// INC BC
+		operations[0x03] = operand -> {
+			r.setBC(alu.incWord(r.getBC()));
+			tick(1);
+		};
+		// INC B
+		operations[0x04] = operand -> {
+			r.setB(alu.incByte(r.getB()));
+			tick(1);
+		};
+		// DEC B
+		operations[0x05] = operand -> {
+			r.setB(alu.decByte(r.getB()));
+			tick(1);
+		};
+		// LD B n
+		operations[0x06] = operand -> {
+			r.setB(operand);
+			tick(2);
+		};
+		// RLC A
+		operations[0x07] = operand -> {
+			r.setA(alu.rotateLeftCarry(r.getA()));
+			tick(1);
+		};
+		// LD (nn) SP
+		operations[0x08] = operand -> {
+			m.writeWord(operand, sp);
 			tick(3);
-			break;
-		case 0x35:
-			// DEC (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.decByte(m.readByte(r.getWord(REGISTERS.HL))));
+		};
+		// ADD HL BC
+		operations[0x09] = operand -> {
+			r.setHL(alu.addWords(r.getHL(), r.getBC()));
 			tick(3);
-			break;
-		case 0x36:
-			// LD (HL) n
-			m.writeByte(r.getWord(REGISTERS.HL), m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x37:
-			// SCF
-			alu.setCarry();
-			tick(1);
-			break;
-		case 0x38:
-			// JR C n
-			value = (byte) m.readByte(pc++);
-			if (alu.wasCarry()) {
-				pc += value;
-			}
-			tick(2);
-			break;
-		case 0x39:
-			// ADD HL SP
-			r.setWord(REGISTERS.HL, alu.addWords(r.getWord(REGISTERS.HL), sp));
-			tick(12);
-			break;
-		case 0x3A:
-			// LDD A (HL)
-			r.set(REGISTERS.A, m.readByte(r.getWord(REGISTERS.HL)));
-			r.setWord(REGISTERS.HL, alu.decWord(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x3B:
-			// DEC SP
-			sp--;
-			tick(1);
-			break;
-		case 0x3C:
-			// INC A
-			r.set(REGISTERS.A, alu.incByte(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x3D:
-			// DEC A
-			r.set(REGISTERS.A, alu.decByte(r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0x3E:
-			// LD A n
-			r.set(REGISTERS.A, m.readByte(pc++));
-			tick(2);
-			break;
-		case 0x3F:
-			// CCF
-			alu.clearCarry();
-			tick(1);
-			break;
-		case 0x40:
-			// LD B B
-			r.set(REGISTERS.B, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x41:
-			// LD B C
-			r.set(REGISTERS.B, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x42:
-			// LD B D
-			r.set(REGISTERS.B, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x43:
-			// LD B E
-			r.set(REGISTERS.B, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x44:
-			// LD B H
-			r.set(REGISTERS.B, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x45:
-			// LD B L
-			r.set(REGISTERS.B, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x46:
-			// LD B (HL)
-			r.set(REGISTERS.B, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x47:
-			// LD B A
-			r.set(REGISTERS.B, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x48:
-			// LD C B
-			r.set(REGISTERS.C, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x49:
-			// LD C C
-			r.set(REGISTERS.C, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x4A:
-			// LD C D
-			r.set(REGISTERS.C, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x4B:
-			// LD C E
-			r.set(REGISTERS.C, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x4C:
-			// LD C H
-			r.set(REGISTERS.C, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x4D:
-			// LD C L
-			r.set(REGISTERS.C, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x4E:
-			// LD C (HL)
-			r.set(REGISTERS.C, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x4F:
-			// LD C A
-			r.set(REGISTERS.C, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x50:
-			// LD D B
-			r.set(REGISTERS.D, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x51:
-			// LD D C
-			r.set(REGISTERS.D, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x52:
-			// LD D D
-			r.set(REGISTERS.D, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x53:
-			// LD D E
-			r.set(REGISTERS.D, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x54:
-			// LD D H
-			r.set(REGISTERS.D, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x55:
-			// LD D L
-			r.set(REGISTERS.D, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x56:
-			// LD D (HL)
-			r.set(REGISTERS.D, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x57:
-			// LD D A
-			r.set(REGISTERS.D, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x58:
-			// LD E B
-			r.set(REGISTERS.E, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x59:
-			// LD E C
-			r.set(REGISTERS.E, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x5A:
-			// LD E D
-			r.set(REGISTERS.E, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x5B:
-			// LD E E
-			r.set(REGISTERS.E, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x5C:
-			// LD E H
-			r.set(REGISTERS.E, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x5D:
-			// LD E L
-			r.set(REGISTERS.E, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x5E:
-			// LD E (HL)
-			r.set(REGISTERS.E, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x5F:
-			// LD E A
-			r.set(REGISTERS.E, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x60:
-			// LD H B
-			r.set(REGISTERS.H, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x61:
-			// LD H C
-			r.set(REGISTERS.H, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x62:
-			// LD H D
-			r.set(REGISTERS.H, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x63:
-			// LD H E
-			r.set(REGISTERS.H, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x64:
-			// LD H H
-			r.set(REGISTERS.H, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x65:
-			// LD H L
-			r.set(REGISTERS.H, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x66:
-			// LD H (HL)
-			r.set(REGISTERS.H, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x67:
-			// LD H A
-			r.set(REGISTERS.H, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x68:
-			// LD L B
-			r.set(REGISTERS.L, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x69:
-			// LD L C
-			r.set(REGISTERS.L, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x6A:
-			// LD L D
-			r.set(REGISTERS.L, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x6B:
-			// LD L E
-			r.set(REGISTERS.L, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x6C:
-			// LD L H
-			r.set(REGISTERS.L, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x6D:
-			// LD L B
-			r.set(REGISTERS.L, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x6E:
-			// LD L (HL)
-			r.set(REGISTERS.L, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x6F:
-			// LD L A
-			r.set(REGISTERS.L, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x70:
-			// LD (HL) B
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x71:
-			// LD (HL) C
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x72:
-			// LD (HL) D
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x73:
-			// LD (HL) E
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x74:
-			// LD (HL) H
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x75:
-			// LD (HL) L
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x76:
-			// HALT
-			pc--;
-			break;
-		case 0x77:
-			// LD (HL) A
-			m.writeByte(r.getWord(REGISTERS.HL), r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x78:
-			// LD A B
-			r.set(REGISTERS.A, r.get(REGISTERS.B));
-			tick(2);
-			break;
-		case 0x79:
-			// LD A C
-			r.set(REGISTERS.A, r.get(REGISTERS.C));
-			tick(2);
-			break;
-		case 0x7A:
-			// LD A D
-			r.set(REGISTERS.A, r.get(REGISTERS.D));
-			tick(2);
-			break;
-		case 0x7B:
-			// LD A E
-			r.set(REGISTERS.A, r.get(REGISTERS.E));
-			tick(2);
-			break;
-		case 0x7C:
-			// LD A H
-			r.set(REGISTERS.A, r.get(REGISTERS.H));
-			tick(2);
-			break;
-		case 0x7D:
-			// LD A L
-			r.set(REGISTERS.A, r.get(REGISTERS.L));
-			tick(2);
-			break;
-		case 0x7E:
-			// LD A (HL)
-			r.set(REGISTERS.A, m.readByte(r.getWord(REGISTERS.HL)));
-			tick(2);
-			break;
-		case 0x7F:
-			// LD A A
-			r.set(REGISTERS.A, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0x80:
-			// ADD A B
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.B)));
-			tick(2);
-			break;
-		case 0x81:
-			// ADD A C
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.C)));
-			tick(2);
-			break;
-		case 0x82:
-			// ADD A D
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.D)));
-			tick(2);
-			break;
-		case 0x83:
-			// ADD A E
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.E)));
-			tick(1);
-			break;
-		case 0x84:
-			// ADD A H
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.H)));
-			tick(2);
-			break;
-		case 0x85:
-			// ADD A L
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.L)));
-			tick(2);
-			break;
-		case 0x86:
-			// ADD A (HL)
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A),
-							m.readByte(r.getWord(REGISTERS.HL))));
-			tick(2);
-			break;
-		case 0x87:
-			// ADD A A
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), r.get(REGISTERS.A)));
-			tick(2);
-			break;
-		case 0x88:
-			// ADC A B
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.B),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x89:
-			// ADC A C
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.C),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x8A:
-			// ADC A D
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.D),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x8B:
-			// ADC A E
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.E),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x8C:
-			// ADC A H
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.H),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x8D:
-			// ADC A L
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.L),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x8E:
-			// ADC A (HL)
-			r.set(REGISTERS.A,
-					alu.addByteWithCarry(m.readByte(r.getWord(REGISTERS.HL)),
-							r.get(REGISTERS.A)));
-			break;
-		case 0x8F:
-			// ADC A A
-			r.set(REGISTERS.A, alu.addByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.A)));
-			break;
-		case 0x90:
-			// SUB A B
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.B)));
-			tick(2);
-			break;
-		case 0x91:
-			// SUB A C
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.C)));
-			tick(2);
-			break;
-		case 0x92:
-			// SUB A D
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.D)));
-			tick(2);
-			break;
-		case 0x93:
-			// SUB A E
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.E)));
-			tick(2);
-			break;
-		case 0x94:
-			// SUB A H
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.H)));
-			tick(2);
-			break;
-		case 0x95:
-			// SUB A L
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.L)));
-			tick(2);
-			break;
-		case 0x96:
-			// SUB A HL
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A),
-							m.readByte(r.getWord(REGISTERS.HL))));
-			tick(2);
-			break;
-		case 0x97:
-			// SUB A A
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), r.get(REGISTERS.A)));
-			tick(2);
-			break;
-		case 0x98:
-			// SBC A B
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.B)));
-			tick(2);
-			break;
-		case 0x99:
-			// SBC A C
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.C)));
-			tick(2);
-			break;
-		case 0x9A:
-			// SBC A D
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.D)));
-			tick(2);
-			break;
-		case 0x9B:
-			// SBC A E
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.E)));
-			tick(2);
-			break;
-		case 0x9C:
-			// SBC A H
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.H)));
-			tick(2);
-			break;
-		case 0x9D:
-			// SBC A L
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.L)));
-			tick(2);
-			break;
-		case 0x9E:
-			// SBC A (HL)
-			r.set(REGISTERS.A,
-					alu.subByteWithCarry(r.get(REGISTERS.A),
-							m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x9F:
-			// SBC A A
-			r.set(REGISTERS.A, alu.subByteWithCarry(r.get(REGISTERS.A),
-					r.get(REGISTERS.A)));
-			tick(2);
-			break;
-		case 0xA0:
-			// AND B
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.B)));
-			tick(1);
-			break;
-		case 0xA1:
-			// AND C
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.C)));
-			tick(1);
-			break;
-		case 0xA2:
-			// AND D
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.D)));
-			tick(1);
-			break;
-		case 0xA3:
-			// AND E
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.E)));
-			tick(1);
-			break;
-		case 0xA4:
-			// AND H
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.H)));
-			tick(1);
-			break;
-		case 0xA5:
-			// AND L
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.L)));
-			tick(1);
-			break;
-		case 0xA6:
-			// AND (HL)
-			r.set(REGISTERS.A,
-					alu.and(r.get(REGISTERS.A),
-							m.readByte(r.getWord(REGISTERS.HL))));
-			tick(2);
-			break;
-		case 0xA7:
-			// AND A
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0xA8:
-			// XOR B
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.B)));
-			tick(1);
-			break;
-		case 0xA9:
-			// XOR C
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.C)));
-			tick(1);
-			break;
-		case 0xAA:
-			// XOR D
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.D)));
-			tick(1);
-			break;
-		case 0xAB:
-			// XOR E
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.E)));
-			tick(1);
-			break;
-		case 0xAC:
-			// XOR B
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.H)));
-			tick(1);
-			break;
-		case 0xAD:
-			// XOR B
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.L)));
-			tick(1);
-			break;
-		case 0xAE:
-			// XOR (HL)
-			r.set(REGISTERS.A,
-					alu.xor(r.get(REGISTERS.A),
-							m.readByte(r.getWord(REGISTERS.HL))));
-			tick(2);
-			break;
-		case 0xAF:
-			// XOR A
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0xB0:
-			// OR B
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.B)));
-			tick(1);
-			break;
-		case 0xB1:
-			// OR C
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.C)));
-			tick(1);
-			break;
-		case 0xB2:
-			// OR D
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.D)));
-			tick(1);
-			break;
-		case 0xB3:
-			// OR E
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.E)));
-			tick(1);
-			break;
-		case 0xB4:
-			// OR H
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.H)));
-			tick(1);
-			break;
-		case 0xB5:
-			// OR L
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.L)));
+		};
+		// LD A (BC)
+		operations[0x0A] = operand -> {
+			r.setA(m.readByte(r.getBC()));
+			tick(2);
+		};
+		// DEC BC
+		operations[0x0B] = operand -> {
+			r.setBC(alu.decWord(r.getBC()));
+			tick(1);
+		};
+		// INC C
+		operations[0x0C] = operand -> {
+			r.setC(alu.incByte(r.getC()));
+			tick(1);
+		};
+		// DEC C
+		operations[0x0D] = operand -> {
+			r.setC(alu.decByte(r.getC()));
+			tick(1);
+		};
+		// LD C n
+		operations[0x0E] = operand -> {
+			r.setC(operand);
+			tick(2);
+		};
+		// RRC A
+		operations[0x0F] = operand -> {
+			r.setA(alu.rotateRightCarry(r.getA()));
+			tick(1);
+		};
+		// STOP
+		operations[0x10] = operand -> {
+			running = false;
+		};
+		// LD DE nn
+		operations[0x11] = operand -> {
+			r.setDE(operand);
+			tick(3);
+		};
+		// LD (DE) A
+		operations[0x12] = operand -> {
+			m.writeByte(r.getDE(), r.getA());
+			tick(2);
+		};
+		// INC DE
+		operations[0x13] = operand -> {
+			r.setDE(alu.incWord(r.getDE()));
+			tick(1);
+		};
+		// INC D
+		operations[0x14] = operand -> {
+			r.setD(alu.incByte(r.getD()));
+			tick(1);
+		};
+		// DEC D
+		operations[0x15] = operand -> {
+			r.setD(alu.decByte(r.getD()));
+			tick(1);
+		};
+		// LD D n
+		operations[0x16] = operand -> {
+			r.setD(operand);
+			tick(2);
+		};
+		// RL A
+		operations[0x17] = operand -> {
+			r.setA(alu.rotateLeft(r.getA()));
+			tick(1);
+		};
+		// JR n (signed)
+		operations[0x18] = operand -> {
+			pc += (byte) operand;
+			tick(1);
+		};
+		// ADD HL DE
+		operations[0x19] = operand -> {
+			r.setHL(alu.addWords(r.getHL(), r.getDE()));
+			tick(3);
+		};
+		// LD A (DE)
+		operations[0x1A] = operand -> {
+			r.setA(m.readByte(r.getDE()));
+			tick(2);
+		};
+		// DEC DE
+		operations[0x1B] = operand -> {
+			r.setDE(alu.decWord(r.getDE()));
+			tick(1);
+		};
+		// INC E
+		operations[0x1C] = operand -> {
+			r.setE(alu.incByte(r.getE()));
+			tick(1);
+		};
+		// DEC E
+		operations[0x1D] = operand -> {
+			r.setE(alu.decByte(r.getE()));
+			tick(1);
+		};
+		// LD E n
+		operations[0x1E] = operand -> {
+			r.setE(operand);
+			tick(2);
+		};
+		// RR A
+		operations[0x1F] = operand -> {
+			r.setA(alu.rotateRight(r.getA()));
+			tick(1);
+		};
+		// JR NZ n
+		operations[0x20] = operand -> {
+			if (!alu.wasZero()) {
+				pc += (byte) operand;
+			}
 			tick(1);
-			break;
-		case 0xB6:
-			// OR (HL)
-			r.set(REGISTERS.A,
-					alu.or(r.get(REGISTERS.A),
-							m.readByte(r.getWord(REGISTERS.HL))));
+		};
+		// LD HL nn
+		operations[0x21] = operand -> {
+			r.setHL(operand);
+			tick(3);
+		};
+		// LDI (HL) A
+		operations[0x22] = operand -> {
+			m.writeByte(r.getHL(), r.getA());
+			r.setHL(alu.incWord(r.getHL()));
+			tick(2);
+		};
+		// INC HL
+		operations[0x23] = operand -> {
+			r.setHL(alu.incWord(r.getHL()));
+			tick(1);
+		};
+		// INC H
+		operations[0x24] = operand -> {
+			r.setH(alu.incByte(r.getH()));
+			tick(1);
+		};
+		// DEC H
+		operations[0x25] = operand -> {
+			r.setH(alu.decByte(r.getH()));
+			tick(1);
+		};
+		// LD H n
+		operations[0x26] = operand -> {
+			r.setH(operand);
+			tick(2);
+		};
+		// DAA
+		operations[0x27] = operand -> {
+			r.setA(alu.BCCTransform(r.getA()));
+			tick(1);
+		};
+		// JR Z n
+		operations[0x28] = operand -> {
+			if (alu.wasZero()) {
+				pc += (byte) operand;
+			}
 			tick(2);
-			break;
-		case 0xB7:
-			// OR A
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), r.get(REGISTERS.A)));
-			tick(1);
-			break;
-		case 0xB8:
-			// CP B
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.B));
-			tick(1);
-			break;
-		case 0xB9:
-			// CP C
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.C));
-			tick(1);
-			break;
-		case 0xBA:
-			// CP D
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.D));
+		};
+		// ADD HL HL
+		operations[0x29] = operand -> {
+			r.setHL(alu.addWords(r.getHL(), r.getHL()));
+			tick(2);
+		};
+		// LDI A (HL)
+		operations[0x2A] = operand -> {
+			r.setA(m.readByte(r.getHL()));
+			r.setHL(alu.incWord(r.getHL()));
+			tick(2);
+		};
+		// DEC HL
+		operations[0x2B] = operand -> {
+			r.setHL(alu.decWord(r.getHL()));
+			tick(1);
+		};
+		// INC L
+		operations[0x2C] = operand -> {
+			r.setL(alu.incByte(r.getL()));
+			tick(1);
+		};
+		// DEC L
+		operations[0x2D] = operand -> {
+			r.setL(alu.decByte(r.getL()));
+			tick(1);
+		};
+		// LD L n
+		operations[0x2E] = operand -> {
+			r.setL(operand);
+			tick(2);
+		};
+		// CPL
+		operations[0x2F] = operand -> {
+			r.setL(alu.complement(r.getL()));
+			tick(1);
+		};
+		// JR NC n
+		operations[0x30] = operand -> {
+			if (alu.wasCarry()) {
+				pc += (byte) operand;
+			}
+		};
+		// LD SP nn
+		operations[0x31] = operand -> {
+			sp = operand;
+			tick(3);
+		};
+		// LDD (HL) A
+		operations[0x32] = operand -> {
+			m.writeByte(r.getHL(), r.getA());
+			r.setHL(alu.decWord(r.getHL()));
+			tick(2);
+		};
+		operations[0x33] = operand -> {
+			sp++;
 			tick(1);
-			break;
-		case 0xBB:
-			// CP E
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.E));
+		};
+		// INC (HL)
+		operations[0x34] = operand -> {
+			m.writeByte(r.getHL(), alu.incByte(m.readByte(r.getHL())));
+			tick(3);
+		};
+		// DEC (HL)
+		operations[0x35] = operand -> {
+			m.writeByte(r.getHL(), alu.decByte(m.readByte(r.getHL())));
+			tick(3);
+		};
+		// LD (HL) n
+		operations[0x36] = operand -> {
+			m.writeByte(r.getHL(), operand);
+			tick(2);
+		};
+		// SCF
+		operations[0x37] = operand -> {
+			alu.setCarry();
 			tick(1);
-			break;
-		case 0xBC:
-			// CP H
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.H));
+		};
+		// JR C n
+		operations[0x38] = operand -> {
+			if (alu.wasCarry()) {
+				pc += (byte) operand;
+			}
+			tick(2);
+		};
+		// ADD HL SP
+		operations[0x39] = operand -> {
+			r.setHL(alu.addWords(r.getHL(), sp));
+			tick(12);
+		};
+		// LDD A (HL)
+		operations[0x3A] = operand -> {
+			r.setA(m.readByte(r.getHL()));
+			r.setHL(alu.decWord(r.getHL()));
+			tick(2);
+		};
+		// DEC SP
+		operations[0x3B] = operand -> {
+			sp--;
 			tick(1);
-			break;
-		case 0xBD:
-			// CP L
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.L));
+		};
+		// INC A
+		operations[0x3C] = operand -> {
+			r.setA(alu.incByte(r.getA()));
 			tick(1);
-			break;
-		case 0xBE:
-			// CP (HL)
-
-			alu.compare(r.get(REGISTERS.A), m.readByte(r.getWord(REGISTERS.HL)));
+		};
+		// DEC A
+		operations[0x3D] = operand -> {
+			r.setA(alu.decByte(r.getA()));
 			tick(1);
-			break;
-		case 0xBF:
-			// CP A
-
-			alu.compare(r.get(REGISTERS.A), r.get(REGISTERS.A));
+		};
+		// LD A n
+		operations[0x3E] = operand -> {
+			r.setA(operand);
+			tick(2);
+		};
+		// CCF
+		operations[0x3F] = operand -> {
+			alu.clearCarry();
 			tick(1);
-			break;
-		case 0xC0:
-			// RET NZ
+		};
+		// LD B B
+		operations[0x40] = operand -> {
+			r.setB(r.getB());
+			tick(2);
+		};
+		// LD B C
+		operations[0x41] = operand -> {
+			r.setB(r.getC());
+			tick(2);
+		};
+		// LD B D
+		operations[0x42] = operand -> {
+			r.setB(r.getD());
+			tick(2);
+		};
+		// LD B E
+		operations[0x43] = operand -> {
+			r.setB(r.getE());
+			tick(2);
+		};
+		// LD B H
+		operations[0x44] = operand -> {
+			r.setB(r.getH());
+			tick(2);
+		};
+		// LD B L
+		operations[0x45] = operand -> {
+			r.setB(r.getL());
+			tick(2);
+		};
+		// LD B (HL)
+		operations[0x46] = operand -> {
+			r.setB(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD B A
+		operations[0x47] = operand -> {
+			r.setB(r.getA());
+			tick(2);
+		};
+		// LD C B
+		operations[0x48] = operand -> {
+			r.setC(r.getB());
+			tick(2);
+		};
+		// LD C C
+		operations[0x49] = operand -> {
+			r.setC(r.getC());
+			tick(2);
+		};
+		// LD C D
+		operations[0x4A] = operand -> {
+			r.setC(r.getD());
+			tick(2);
+		};
+		// LD C E
+		operations[0x4B] = operand -> {
+			r.setC(r.getE());
+			tick(2);
+		};
+		// LD C H
+		operations[0x4C] = operand -> {
+			r.setC(r.getH());
+			tick(2);
+		};
+		// LD C L
+		operations[0x4D] = operand -> {
+			r.setC(r.getL());
+			tick(2);
+		};
+		// LD C (HL)
+		operations[0x4E] = operand -> {
+			r.setC(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD C A
+		operations[0x4F] = operand -> {
+			r.setC(r.getA());
+			tick(2);
+		};
+		// LD D B
+		operations[0x50] = operand -> {
+			r.setD(r.getB());
+			tick(2);
+		};
+		// LD D C
+		operations[0x51] = operand -> {
+			r.setD(r.getC());
+			tick(2);
+		};
+		// LD D D
+		operations[0x52] = operand -> {
+			r.setD(r.getD());
+			tick(2);
+		};
+		// LD D E
+		operations[0x53] = operand -> {
+			r.setD(r.getE());
+			tick(2);
+		};
+		// LD D H
+		operations[0x54] = operand -> {
+			r.setD(r.getH());
+			tick(2);
+		};
+		// LD D L
+		operations[0x55] = operand -> {
+			r.setD(r.getL());
+			tick(2);
+		};
+		// LD D (HL)
+		operations[0x56] = operand -> {
+			r.setD(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD D A
+		operations[0x57] = operand -> {
+			r.setD(r.getA());
+			tick(2);
+		};
+		// LD E B
+		operations[0x58] = operand -> {
+			r.setE(r.getB());
+			tick(2);
+		};
+		// LD E C
+		operations[0x59] = operand -> {
+			r.setE(r.getC());
+			tick(2);
+		};
+		// LD E D
+		operations[0x5A] = operand -> {
+			r.setE(r.getD());
+			tick(2);
+		};
+		// LD E E
+		operations[0x5B] = operand -> {
+			r.setE(r.getE());
+			tick(2);
+		};
+		// LD E H
+		operations[0x5C] = operand -> {
+			r.setE(r.getH());
+			tick(2);
+		};
+		// LD E L
+		operations[0x5D] = operand -> {
+			r.setE(r.getL());
+			tick(2);
+		};
+		// LD E (HL)
+		operations[0x5E] = operand -> {
+			r.setE(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD E A
+		operations[0x5F] = operand -> {
+			r.setE(r.getA());
+			tick(2);
+		};
+		// LD H B
+		operations[0x60] = operand -> {
+			r.setH(r.getB());
+			tick(2);
+		};
+		// LD H C
+		operations[0x61] = operand -> {
+			r.setH(r.getC());
+			tick(2);
+		};
+		// LD H D
+		operations[0x62] = operand -> {
+			r.setH(r.getD());
+			tick(2);
+		};
+		// LD H E
+		operations[0x63] = operand -> {
+			r.setH(r.getE());
+			tick(2);
+		};
+		// LD H H
+		operations[0x64] = operand -> {
+			r.setH(r.getH());
+			tick(2);
+		};
+		// LD H L
+		operations[0x65] = operand -> {
+			r.setH(r.getL());
+			tick(2);
+		};
+		// LD H (HL)
+		operations[0x66] = operand -> {
+			r.setH(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD H A
+		operations[0x67] = operand -> {
+			r.setH(r.getA());
+			tick(2);
+		};
+		// LD L B
+		operations[0x68] = operand -> {
+			r.setL(r.getB());
+			tick(2);
+		};
+		// LD L C
+		operations[0x69] = operand -> {
+			r.setL(r.getC());
+			tick(2);
+		};
+		// LD L D
+		operations[0x6A] = operand -> {
+			r.setL(r.getD());
+			tick(2);
+		};
+		// LD L E
+		operations[0x6B] = operand -> {
+			r.setL(r.getE());
+			tick(2);
+		};
+		// LD L H
+		operations[0x6C] = operand -> {
+			r.setL(r.getH());
+			tick(2);
+		};
+		// LD L B
+		operations[0x6D] = operand -> {
+			r.setL(r.getL());
+			tick(2);
+		};
+		// LD L (HL)
+		operations[0x6E] = operand -> {
+			r.setL(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD L A
+		operations[0x6F] = operand -> {
+			r.setL(r.getA());
+			tick(2);
+		};
+		// LD (HL) B
+		operations[0x70] = operand -> {
+			m.writeByte(r.getHL(), r.getB());
+			tick(2);
+		};
+		// LD (HL) C
+		operations[0x71] = operand -> {
+			m.writeByte(r.getHL(), r.getC());
+			tick(2);
+		};
+		// LD (HL) D
+		operations[0x72] = operand -> {
+			m.writeByte(r.getHL(), r.getD());
+			tick(2);
+		};
+		// LD (HL) E
+		operations[0x73] = operand -> {
+			m.writeByte(r.getHL(), r.getE());
+			tick(2);
+		};
+		// LD (HL) H
+		operations[0x74] = operand -> {
+			m.writeByte(r.getHL(), r.getH());
+			tick(2);
+		};
+		// LD (HL) L
+		operations[0x75] = operand -> {
+			m.writeByte(r.getHL(), r.getL());
+			tick(2);
+		};
+		// HALT
+		operations[0x76] = operand -> {
+			halted = true;
+			tick(1);
+		};
+		// LD (HL) A
+		operations[0x77] = operand -> {
+			m.writeByte(r.getHL(), r.getA());
+			tick(2);
+		};
+		// LD A B
+		operations[0x78] = operand -> {
+			r.setA(r.getB());
+			tick(2);
+		};
+		// LD A C
+		operations[0x79] = operand -> {
+			r.setA(r.getC());
+			tick(2);
+		};
+		// LD A D
+		operations[0x7A] = operand -> {
+			r.setA(r.getD());
+			tick(2);
+		};
+		// LD A E
+		operations[0x7B] = operand -> {
+			r.setA(r.getE());
+			tick(2);
+		};
+		// LD A H
+		operations[0x7C] = operand -> {
+			r.setA(r.getH());
+			tick(2);
+		};
+		// LD A L
+		operations[0x7D] = operand -> {
+			r.setA(r.getL());
+			tick(2);
+		};
+		// LD A (HL)
+		operations[0x7E] = operand -> {
+			r.setA(m.readByte(r.getHL()));
+			tick(2);
+		};
+		// LD A A
+		operations[0x7F] = operand -> {
+			r.setA(r.getA());
+			tick(2);
+		};
+		// ADD A B
+		operations[0x80] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getB()));
+			tick(2);
+		};
+		// ADD A C
+		operations[0x81] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getC()));
+			tick(2);
+		};
+		// ADD A D
+		operations[0x82] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getD()));
+			tick(2);
+		};
+		// ADD A E
+		operations[0x83] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getE()));
+			tick(1);
+		};
+		// ADD A H
+		operations[0x84] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getH()));
+			tick(2);
+		};
+		// ADD A L
+		operations[0x85] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getL()));
+			tick(2);
+		};
+		// ADD A (HL)
+		operations[0x86] = operand -> {
+			r.setA(alu.addByte(r.getA(), m.readByte(r.getHL())));
+			tick(2);
+		};
+		// ADD A A
+		operations[0x87] = operand -> {
+			r.setA(alu.addByte(r.getA(), r.getA()));
+			tick(2);
+		};
+		// ADC A B
+		operations[0x88] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getB(), r.getA()));
+		};
+		// ADC A C
+		operations[0x89] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getC(), r.getA()));
+		};
+		// ADC A D
+		operations[0x8A] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getD(), r.getA()));
+		};
+		// ADC A E
+		operations[0x8B] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getE(), r.getA()));
+		};
+		// ADC A H
+		operations[0x8C] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getH(), r.getA()));
+		};
+		// ADC A L
+		operations[0x8D] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getL(), r.getA()));
+		};
+		// ADC A (HL)
+		operations[0x8E] = operand -> {
+			r.setA(alu.addByteWithCarry(m.readByte(r.getHL()), r.getA()));
+		};
+		// ADC A A
+		operations[0x8F] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getA(), r.getA()));
+		};
+		// SUB A B
+		operations[0x90] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getB()));
+			tick(2);
+		};
+		// SUB A C
+		operations[0x91] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getC()));
+			tick(2);
+		};
+		// SUB A D
+		operations[0x92] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getD()));
+			tick(2);
+		};
+		// SUB A E
+		operations[0x93] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getE()));
+			tick(2);
+		};
+		// SUB A H
+		operations[0x94] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getH()));
+			tick(2);
+		};
+		// SUB A L
+		operations[0x95] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getL()));
+			tick(2);
+		};
+		// SUB A HL
+		operations[0x96] = operand -> {
+			r.setA(alu.subByte(r.getA(), m.readByte(r.getHL())));
+			tick(2);
+		};
+		// SUB A A
+		operations[0x97] = operand -> {
+			r.setA(alu.subByte(r.getA(), r.getA()));
+			tick(2);
+		};
+		// SBC A B
+		operations[0x98] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getB()));
+			tick(2);
+		};
+		// SBC A C
+		operations[0x99] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getC()));
+			tick(2);
+		};
+		// SBC A D
+		operations[0x9A] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getD()));
+			tick(2);
+		};
+		// SBC A E
+		operations[0x9B] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getE()));
+			tick(2);
+		};
+		// SBC A H
+		operations[0x9C] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getH()));
+			tick(2);
+		};
+		// SBC A L
+		operations[0x9D] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getL()));
+			tick(2);
+		};
+		// SBC A (HL)
+		operations[0x9E] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), m.readByte(r.getHL())));
+		};
+		// SBC A A
+		operations[0x9F] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), r.getA()));
+			tick(2);
+		};
+		// AND B
+		operations[0xA0] = operand -> {
+			r.setA(alu.and(r.getA(), r.getB()));
+			tick(1);
+		};
+		// AND C
+		operations[0xA1] = operand -> {
+			r.setA(alu.and(r.getA(), r.getC()));
+			tick(1);
+		};
+		// AND D
+		operations[0xA2] = operand -> {
+			r.setA(alu.and(r.getA(), r.getD()));
+			tick(1);
+		};
+		// AND E
+		operations[0xA3] = operand -> {
+			r.setA(alu.and(r.getA(), r.getE()));
+			tick(1);
+		};
+		// AND H
+		operations[0xA4] = operand -> {
+			r.setA(alu.and(r.getA(), r.getH()));
+			tick(1);
+		};
+		// AND L
+		operations[0xA5] = operand -> {
+			r.setA(alu.and(r.getA(), r.getL()));
+			tick(1);
+		};
+		// AND (HL)
+		operations[0xA6] = operand -> {
+			r.setA(alu.and(r.getA(), m.readByte(r.getHL())));
+			tick(2);
+		};
+		// AND A
+		operations[0xA7] = operand -> {
+			r.setA(alu.and(r.getA(), r.getA()));
+			tick(1);
+		};
+		// XOR B
+		operations[0xA8] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getB()));
+			tick(1);
+		};
+		// XOR C
+		operations[0xA9] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getC()));
+			tick(1);
+		};
+		// XOR D
+		operations[0xAA] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getD()));
+			tick(1);
+		};
+		// XOR E
+		operations[0xAB] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getE()));
+			tick(1);
+		};
+		// XOR B
+		operations[0xAC] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getH()));
+			tick(1);
+		};
+		// XOR B
+		operations[0xAD] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getL()));
+			tick(1);
+		};
+		// XOR (HL)
+		operations[0xAE] = operand -> {
+			r.setA(alu.xor(r.getA(), m.readByte(r.getHL())));
+			tick(2);
+		};
+		// XOR A
+		operations[0xAF] = operand -> {
+			r.setA(alu.xor(r.getA(), r.getA()));
+			tick(1);
+		};
+		// OR B
+		operations[0xB0] = operand -> {
+			r.setA(alu.or(r.getA(), r.getB()));
+			tick(1);
+		};
+		// OR C
+		operations[0xB1] = operand -> {
+			r.setA(alu.or(r.getA(), r.getC()));
+			tick(1);
+		};
+		// OR D
+		operations[0xB2] = operand -> {
+			r.setA(alu.or(r.getA(), r.getD()));
+			tick(1);
+		};
+		// OR E
+		operations[0xB3] = operand -> {
+			r.setA(alu.or(r.getA(), r.getE()));
+			tick(1);
+		};
+		// OR H
+		operations[0xB4] = operand -> {
+			r.setA(alu.or(r.getA(), r.getH()));
+			tick(1);
+		};
+		// OR L
+		operations[0xB5] = operand -> {
+			r.setA(alu.or(r.getA(), r.getL()));
+			tick(1);
+		};
+		// OR (HL)
+		operations[0xB6] = operand -> {
+			r.setA(alu.or(r.getA(), m.readByte(r.getHL())));
+			tick(2);
+		};
+		// OR A
+		operations[0xB7] = operand -> {
+			r.setA(alu.or(r.getA(), r.getA()));
+			tick(1);
+		};
+		// CP B
+		operations[0xB8] = operand -> {
+			alu.compare(r.getA(), r.getB());
+			tick(1);
+		};
+		// CP C
+		operations[0xB9] = operand -> {
+			alu.compare(r.getA(), r.getC());
+			tick(1);
+		};
+		// CP D
+		operations[0xBA] = operand -> {
+			alu.compare(r.getA(), r.getD());
+			tick(1);
+		};
+		// CP E
+		operations[0xBB] = operand -> {
+			alu.compare(r.getA(), r.getE());
+			tick(1);
+		};
+		// CP H
+		operations[0xBC] = operand -> {
+			alu.compare(r.getA(), r.getH());
+			tick(1);
+		};
+		// CP L
+		operations[0xBD] = operand -> {
+			alu.compare(r.getA(), r.getL());
+			tick(1);
+		};
+		// CP (HL)
+		operations[0xBE] = operand -> {
+			alu.compare(r.getA(), m.readByte(r.getHL()));
+			tick(1);
+		};
+		// CP A
+		operations[0xBF] = operand -> {
+			alu.compare(r.getA(), r.getA());
+			tick(1);
+		};
+		// RET NZ
+		operations[0xC0] = operand -> {
 			if (!alu.wasZero()) {
 				pc = m.readWord(sp);
 				sp += 2;
 			}
 			tick(3);
-			break;
-		case 0xC1:
-			// POP BC
-			r.setWord(REGISTERS.BC, m.readWord(sp));
+		};
+		// POP BC
+		operations[0xC1] = operand -> {
+			r.setBC(m.readWord(sp));
 			sp += 2;
 			tick(3);
-			break;
-		case 0xC2:
-			// JP NZ nn
-			value = m.readWord(pc);
-			pc += 2;
+		};
+		// JP NZ nn
+		operations[0xC2] = operand -> {
 			if (!alu.wasZero()) {
-				pc = value;
+				pc = operand;
 			}
 			tick(3);
-			break;
-		case 0xC3:
-			// JP nn
-			pc = m.readWord(pc);
+		};
+		// JP nn
+		operations[0xC3] = operand -> {
+			pc = operand;
 			tick(3);
-			break;
-		case 0xC4:
-			// CALL NZ nn
-			value = m.readWord(pc);
-			pc += 2;
+		};
+		// CALL NZ nn
+		operations[0xC4] = operand -> {
 			if (!alu.wasZero()) {
 				// save PC
 				sp -= 2;
 				m.writeWord(sp, pc);
-				pc = value;
+				pc = operand;
 			}
 			tick(5);
-			break;
-		case 0xC5:
-			// PUSH BC
+		};
+		// PUSH BC
+		operations[0xC5] = operand -> {
 			sp -= 2;
-			m.writeWord(sp, r.getWord(REGISTERS.BC));
+			m.writeWord(sp, r.getBC());
 			tick(3);
-			break;
-		case 0xC6:
-			// ADD A n
-			r.set(REGISTERS.A,
-					alu.addByte(r.get(REGISTERS.A), m.readByte(pc++)));
-			tick(2);
-			break;
-		case 0xC7:
-			// RST 0
+		};
+		// ADD A n
+		operations[0xC6] = operand -> {
+			r.setA(alu.addByte(r.getA(), operand));
+			tick(2);
+		};
+		// RST 0
+		operations[0xC7] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0000;
 			tick(3);
-			break;
-		case 0xC8:
-			// RET Z
+		};
+		// RET Z
+		operations[0xC8] = operand -> {
 			if (alu.wasZero()) {
 				pc = m.readWord(sp);
 				sp += 2;
 			}
 			tick(3);
-			break;
-		case 0xC9:
-			// RET
+		};
+		// RET
+		operations[0xC9] = operand -> {
 			pc = m.readWord(sp);
 			sp += 2;
 			tick(3);
-			break;
-		case 0xCA:
-			// JP Z nn
+		};
+		// JP Z nn
+		operations[0xCA] = operand -> {
 			if (alu.wasZero()) {
-				pc = m.readWord(pc);
-			} else {
-				pc += 2;
+				pc = operand;
 			}
 			tick(3);
-			break;
-		case 0xCB:
-			// EXT OP
-			decodeExtendedOperation(nextInstruction());
-			break;
-		case 0xCC:
-			// CALL Z nn
-			value = m.readWord(pc);
-			pc += 2;
+		};
+		// EXT OP
+		operations[0xCB] = operand -> {
+			extendedOperations[operand].execute(0);
+		};
+		// CALL Z nn
+		operations[0xCC] = operand -> {
 			if (alu.wasZero()) {
 				// save PC
 				sp -= 2;
 				m.writeWord(sp, pc);
-				pc = value;
+				pc = operand;
 			}
 			tick(5);
-			break;
-		case 0xCD:
-			// CALL nn
-			value = m.readWord(pc);
-			pc += 2;
+		};
+		// CALL nn
+		operations[0xCD] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
-			pc = value;
+			pc = operand;
 			tick(5);
-			break;
-		case 0xCE:
-			// ADC A n
-			r.set(REGISTERS.A,
-					alu.addByteWithCarry(r.get(REGISTERS.A), m.readByte(pc++)));
-			tick(2);
-			break;
-		case 0xCF:
-			// RST 8
+		};
+		// ADC A n
+		operations[0xCE] = operand -> {
+			r.setA(alu.addByteWithCarry(r.getA(), operand));
+			tick(2);
+		};
+		// RST 8
+		operations[0xCF] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0008;
 			tick(3);
-			break;
-		case 0xD0:
-			// RET NC
+		};
+		// RET NC
+		operations[0xD0] = operand -> {
 			if (!alu.wasCarry()) {
 				pc = m.readWord(sp);
 				sp += 2;
 			}
 			tick(3);
-			break;
-		case 0xD1:
-			// POP DE
-			r.setWord(REGISTERS.DE, m.readWord(sp));
+		};
+		// POP DE
+		operations[0xD1] = operand -> {
+			r.setDE(m.readWord(sp));
 			sp += 2;
 			tick(2);
-			break;
-		case 0xD2:
-			// JP NC nn
+		};
+		// JP NC nn
+		operations[0xD2] = operand -> {
 			if (!alu.wasCarry()) {
-				pc = m.readWord(pc);
-			} else {
-				pc += 2;
+				pc = operand;
 			}
 			tick(3);
-			break;
-		case 0xD3:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xD4:
-			// CALL NC nn
-			value = m.readWord(pc);
-			pc += 2;
+		};
+		operations[0xD3] = removed;
+		// CALL NC nn
+		operations[0xD4] = operand -> {
 			if (!alu.wasCarry()) {
 				// save PC
 				sp -= 2;
 				m.writeWord(sp, pc);
-				pc = value;
+				pc = operand;
 			}
 			tick(5);
-			break;
-		case 0xD5:
-			// PUSH DE
+		};
+		// PUSH DE
+		operations[0xD5] = operand -> {
 			sp -= 2;
-			m.writeWord(sp, r.getWord(REGISTERS.DE));
+			m.writeWord(sp, r.getDE());
 			tick(2);
-			break;
-		case 0xD6:
-			// SUB A n
-			r.set(REGISTERS.A,
-					alu.subByte(r.get(REGISTERS.A), m.readByte(pc++)));
+		};
+		// SUB A n
+		operations[0xD6] = operand -> {
+			r.setA(alu.subByte(r.getA(), operand));
 			tick(2);
-			break;
-		case 0xD7:
-			// RST 10
+		};
+		// RST 10
+		operations[0xD7] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0010;
 			tick(3);
-			break;
-		case 0xD8:
-			// RET C
+		};
+		// RET C
+		operations[0xD8] = operand -> {
 			if (alu.wasCarry()) {
 				pc = m.readWord(sp);
 				sp += 2;
 			}
 			tick(3);
-			break;
-		case 0xD9:
-			// RETI
+		};
+		// RETI
+		operations[0xD9] = operand -> {
 			interrupts = true;
 			pc = m.readWord(sp);
 			sp += 2;
 			tick(3);
-			break;
-		case 0xDA:
-			// JP C nn
+		};
+		// JP C nn
+		operations[0xDA] = operand -> {
 			if (alu.wasCarry()) {
-				pc = m.readWord(pc);
-			} else {
-				pc += 2;
+				pc = operand;
 			}
 			tick(3);
-			break;
-		case 0xDB:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xDC:
-			// CALL C nn
-			value = m.readWord(pc);
-			pc += 2;
+		};
+		operations[0xDB] = removed;
+		// CALL C nn
+		operations[0xDC] = operand -> {
 			if (alu.wasCarry()) {
 				// save PC
 				sp -= 2;
 				m.writeWord(sp, pc);
-				pc = value;
+				pc = operand;
 			}
 			tick(5);
-			break;
-		case 0xDD:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xDE:
-			// SBC A n
-			r.set(REGISTERS.A,
-					alu.subByteWithCarry(r.get(REGISTERS.A), m.readByte(pc++)));
-			tick(2);
-			break;
-		case 0xDF:
-			// RST 18
+		};
+		operations[0xDD] = removed;
+		// SBC A n
+		operations[0xDE] = operand -> {
+			r.setA(alu.subByteWithCarry(r.getA(), operand));
+			tick(2);
+		};
+		// RST 18
+		operations[0xDF] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0018;
 			tick(3);
-			break;
-		case 0xE0:
-			// LDH (n) A
-			m.writeByte(m.readByte(pc++) + 0xFF00, r.get(REGISTERS.A));
-			tick(2);
-			break;
-		case 0xE1:
-			// POP HL
-			r.setWord(REGISTERS.HL, m.readWord(sp));
+		};
+		// LDH (n) A
+		operations[0xE0] = operand -> {
+			m.writeByte(operand + 0xFF00, r.getA());
+			tick(2);
+		};
+		// POP HL
+		operations[0xE1] = operand -> {
+			r.setHL(m.readWord(sp));
 			sp += 2;
 			tick(2);
-			break;
-		case 0xE2:
-			// LDH (C) A
-			m.writeByte(r.get(REGISTERS.C) + 0xFF00, r.get(REGISTERS.A));
+		};
+		// LDH (C) A
+		operations[0xE2] = operand -> {
+			m.writeByte(r.getC() + 0xFF00, r.getA());
 			tick(2);
-			break;
-		case 0xE3:
-		case 0xE4:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xE5:
-			// PUSH HL
+		};
+		operations[0xE3] = removed;
+		operations[0xE4] = removed;
+		// PUSH HL
+		operations[0xE5] = operand -> {
 			sp -= 2;
-			m.writeWord(sp, r.getWord(REGISTERS.HL));
+			m.writeWord(sp, r.getHL());
 			tick(2);
-			break;
-		case 0xE6:
-			// AND n
-			r.set(REGISTERS.A, alu.and(r.get(REGISTERS.A), m.readByte(pc++)));
+		};
+		// AND n
+		operations[0xE6] = operand -> {
+			r.setA(alu.and(r.getA(), operand));
 			tick(2);
-			break;
-		case 0xE7:
-			// RST 20
+		};
+		// RST 20
+		operations[0xE7] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0020;
 			tick(3);
-			break;
-		case 0xE8:
-			// ADD SP d
-			sp += (byte) m.readByte(pc++);
-			tick(2);
-			break;
-		case 0xE9:
-			// JP HL
-			pc = r.getWord(REGISTERS.HL);
-			tick(2);
-			break;
-		case 0xEA:
-			// LD (nn) A
-			m.writeByte(m.readWord(pc), r.get(REGISTERS.A));
-			pc += 2;
+		};
+		// ADD SP d
+		operations[0xE8] = operand -> {
+			sp += (byte) operand;
+			tick(2);
+		};
+		// JP HL
+		operations[0xE9] = operand -> {
+			pc = r.getHL();
+			tick(2);
+		};
+		// LD (nn) A
+		operations[0xEA] = operand -> {
+			m.writeByte(operand, r.getA());
 			tick(3);
-			break;
-		case 0xEB:
-		case 0xEC:
-		case 0xED:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xEE:
-			// XOR n
-			r.set(REGISTERS.A, alu.xor(r.get(REGISTERS.A), m.readByte(pc++)));
-			tick(2);
-			break;
-		case 0xEF:
-			// RST 28
+		};
+		operations[0xEB] = removed;
+		operations[0xEC] = removed;
+		operations[0xED] = removed;
+		// XOR n
+		operations[0xEE] = operand -> {
+			r.setA(alu.xor(r.getA(), operand));
+			tick(2);
+		};
+		// RST 28
+		operations[0xEF] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0028;
 			tick(3);
-			break;
-		case 0xF0:
-			// LDH A (n)
-			r.set(REGISTERS.A, m.readByte(m.readByte(pc++) + 0xFF00));
+		};
+		// LDH A (n)
+		operations[0xF0] = operand -> {
+			r.setA(m.readByte(operand + 0xFF00));
 			tick(3);
-			break;
-		case 0xF1:
-			// POP AF
+		};
+		// POP AF
+		operations[0xF1] = operand -> {
 			alu.setFlagRegister(m.readByte(sp++));
-			r.set(REGISTERS.A, m.readByte(sp++));
+			r.setA(m.readByte(sp++));
 			tick(2);
-			break;
-		case 0xF2:
-		case 0xF4:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xF3:
-			// DI
+		};
+		operations[0xF2] = removed;
+		operations[0xF4] = removed;
+		// DI
+		operations[0xF3] = operand -> {
 			interrupts = false;
 			tick(1);
-			break;
-		case 0xF5:
-			// PUSH AF
+		};
+		// PUSH AF
+		operations[0xF5] = operand -> {
 			sp -= 2;
 			m.writeByte(sp, alu.getFlagRegister());
-			m.writeByte(sp + 1, r.get(REGISTERS.A));
+			m.writeByte(sp + 1, r.getA());
 			tick(2);
-			break;
-		case 0xF6:
-			// OR n
-			r.set(REGISTERS.A, alu.or(r.get(REGISTERS.A), m.readByte(pc++)));
+		};
+		// OR n
+		operations[0xF6] = operand -> {
+			r.setA(alu.or(r.getA(), operand));
 			tick(2);
-			break;
-		case 0xF7:
-			// RST 30
+		};
+		// RST 30
+		operations[0xF7] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0030;
 			tick(3);
-			break;
-		case 0xF8:
-			// LDHL SP d
-			r.setWord(REGISTERS.HL, sp + ((byte) m.readByte(pc++)));
+		};
+		// LDHL SP d
+		operations[0xF8] = operand -> {
+			r.setHL(sp + ((byte) operand));
 			tick(3);
-			break;
-		case 0xF9:
-			// LD SP HL
-			sp = r.getWord(REGISTERS.HL);
-			tick(1);
-			break;
-		case 0xFA:
-			// LD A (nn)
-			value = m.readWord(pc);
-			pc += 2;
-			r.set(REGISTERS.A, m.readByte(value));
+		};
+		// LD SP HL
+		operations[0xF9] = operand -> {
+			sp = r.getHL();
+			tick(1);
+		};
+		// LD A (nn)
+		operations[0xFA] = operand -> {
+			r.setA(m.readByte(operand));
 			tick(3);
-			break;
-		case 0xFB:
-			// EI
+		};
+		// EI
+		operations[0xFB] = operand -> {
 			interrupts = true;
 			tick(1);
-			break;
-		case 0xFC:
-		case 0xFD:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ opcode + " is removed. ");
-		case 0xFE:
-			// CP n
-			alu.compare(r.get(REGISTERS.A), m.readByte(pc++));
+		};
+		operations[0xFC] = removed;
+		operations[0xFD] = removed;
+		// CP n
+		operations[0xFE] = operand -> {
+			alu.compare(r.getA(), operand);
 			tick(2);
-			break;
-		case 0xFF:
-			// RST 38
+		};
+		// RST 38
+		operations[0xFF] = operand -> {
 			sp -= 2;
 			m.writeWord(sp, pc);
 			pc = 0x0038;
 			tick(3);
-			break;
-		default:
-			throw new UnsupportedOpcodeException("Operation with opcode "
-					+ Integer.toHexString(opcode) + " is not supported.");
-		}
+		};
 	}
 
-	private void decodeExtendedOperation(int opcode)
-			throws UnsupportedOpcodeException, IllegalMemoryAccessException,
-			IllegalRegisterAccessException {
-		switch (opcode) {
-		case 0x00:
-			// RLC B
-			r.set(REGISTERS.B, alu.rotateLeftCarry(r.get(REGISTERS.B)));
-			break;
-		case 0x01:
-			// RLC C
-			r.set(REGISTERS.C, alu.rotateLeftCarry(r.get(REGISTERS.C)));
-			break;
-		case 0x02:
-			// RLC D
-			r.set(REGISTERS.D, alu.rotateLeftCarry(r.get(REGISTERS.D)));
-			break;
-		case 0x03:
-			// RLC E
-			r.set(REGISTERS.E, alu.rotateLeftCarry(r.get(REGISTERS.E)));
-			break;
-		case 0x04:
-			// RLC H
-			r.set(REGISTERS.H, alu.rotateLeftCarry(r.get(REGISTERS.H)));
-			break;
-		case 0x05:
-			// RLC L
-			r.set(REGISTERS.L, alu.rotateLeftCarry(r.get(REGISTERS.L)));
-			break;
-		case 0x06:
-			// RLC (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.rotateLeftCarry(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x07:
-			// RLC A
-			r.set(REGISTERS.A, alu.rotateLeftCarry(r.get(REGISTERS.A)));
-			break;
-		case 0x08:
-			// RRC B
-			r.set(REGISTERS.B, alu.rotateRightCarry(r.get(REGISTERS.B)));
-			break;
-		case 0x09:
-			// RRC C
-			r.set(REGISTERS.C, alu.rotateRightCarry(r.get(REGISTERS.C)));
-			break;
-		case 0x0A:
-			// RRC D
-			r.set(REGISTERS.D, alu.rotateRightCarry(r.get(REGISTERS.D)));
-			break;
-		case 0x0B:
-			// RRC E
-			r.set(REGISTERS.E, alu.rotateRightCarry(r.get(REGISTERS.E)));
-			break;
-		case 0x0C:
-			// RLC H
-			r.set(REGISTERS.H, alu.rotateLeftCarry(r.get(REGISTERS.H)));
-			break;
-		case 0x0D:
-			// RRC L
-			r.set(REGISTERS.L, alu.rotateRightCarry(r.get(REGISTERS.L)));
-			break;
-		case 0x0E:
-			// RRC (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.rotateRightCarry(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x0F:
-			// RRC A
-			r.set(REGISTERS.A, alu.rotateRightCarry(r.get(REGISTERS.A)));
-			break;
-		case 0x10:
-			// RL B
-			r.set(REGISTERS.B, alu.rotateLeft(r.get(REGISTERS.B)));
-			break;
-		case 0x11:
-			// RL C
-			r.set(REGISTERS.C, alu.rotateLeft(r.get(REGISTERS.C)));
-			break;
-		case 0x12:
-			// RL D
-			r.set(REGISTERS.D, alu.rotateLeft(r.get(REGISTERS.D)));
-			break;
-		case 0x13:
-			// RL E
-			r.set(REGISTERS.E, alu.rotateLeft(r.get(REGISTERS.E)));
-			break;
-		case 0x14:
-			// RL H
-			r.set(REGISTERS.H, alu.rotateLeft(r.get(REGISTERS.H)));
-			break;
-		case 0x15:
-			// RL L
-			r.set(REGISTERS.L, alu.rotateLeft(r.get(REGISTERS.L)));
-			break;
-		case 0x16:
-			// RL (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.rotateLeft(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x17:
-			// RL A
-			r.set(REGISTERS.A, alu.rotateLeft(r.get(REGISTERS.A)));
-			break;
-		case 0x18:
-			// RR B
-			r.set(REGISTERS.B, alu.rotateRight(r.get(REGISTERS.B)));
-			break;
-		case 0x19:
-			// RR C
-			r.set(REGISTERS.C, alu.rotateRight(r.get(REGISTERS.C)));
-			break;
-		case 0x1A:
-			// RR D
-			r.set(REGISTERS.D, alu.rotateRight(r.get(REGISTERS.D)));
-			break;
-		case 0x1B:
-			// RR E
-			r.set(REGISTERS.E, alu.rotateRight(r.get(REGISTERS.E)));
-			break;
-		case 0x1C:
-			// RL H
-			r.set(REGISTERS.H, alu.rotateLeft(r.get(REGISTERS.H)));
-			break;
-		case 0x1D:
-			// RR L
-			r.set(REGISTERS.L, alu.rotateRight(r.get(REGISTERS.L)));
-			break;
-		case 0x1E:
-			// RR (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.rotateRight(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x1F:
-			// RR A
-			r.set(REGISTERS.A, alu.rotateRight(r.get(REGISTERS.A)));
-			break;
-		case 0x20:
-			// SLA B
-			r.set(REGISTERS.B, alu.shiftLeftSigned(r.get(REGISTERS.B)));
-			break;
-		case 0x21:
-			// SLA C
-			r.set(REGISTERS.C, alu.shiftLeftSigned(r.get(REGISTERS.C)));
-			break;
-		case 0x22:
-			// SLA D
-			r.set(REGISTERS.D, alu.shiftLeftSigned(r.get(REGISTERS.D)));
-			break;
-		case 0x23:
-			// SLA E
-			r.set(REGISTERS.E, alu.shiftLeftSigned(r.get(REGISTERS.E)));
-			break;
-		case 0x24:
-			// SLA H
-			r.set(REGISTERS.H, alu.shiftLeftSigned(r.get(REGISTERS.H)));
-			break;
-		case 0x25:
-			// SLA L
-			r.set(REGISTERS.L, alu.shiftLeftSigned(r.get(REGISTERS.L)));
-			break;
-		case 0x26:
-			// SLA (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.shiftLeftSigned(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x27:
-			// SLA A
-			r.set(REGISTERS.A, alu.shiftLeftSigned(r.get(REGISTERS.A)));
-			break;
-		case 0x28:
-			// SRA B
-			r.set(REGISTERS.B, alu.shiftRightSigned(r.get(REGISTERS.B)));
-			break;
-		case 0x29:
-			// SRA C
-			r.set(REGISTERS.C, alu.shiftRightSigned(r.get(REGISTERS.C)));
-			break;
-		case 0x2A:
-			// SRA D
-			r.set(REGISTERS.D, alu.shiftRightSigned(r.get(REGISTERS.D)));
-			break;
-		case 0x2B:
-			// SRA E
-			r.set(REGISTERS.E, alu.shiftRightSigned(r.get(REGISTERS.E)));
-			break;
-		case 0x2C:
-			// SRA H
-			r.set(REGISTERS.H, alu.shiftRightSigned(r.get(REGISTERS.H)));
-			break;
-		case 0x2D:
-			// SRA L
-			r.set(REGISTERS.L, alu.shiftRightSigned(r.get(REGISTERS.L)));
-			break;
-		case 0x2E:
-			// SRA (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.shiftRightSigned(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x2F:
-			// SRA A
-			r.set(REGISTERS.A, alu.shiftRightSigned(r.get(REGISTERS.A)));
-			break;
-		case 0x30:
-			// SWAP B
-			r.set(REGISTERS.B, alu.swap(r.get(REGISTERS.B)));
-			break;
-		case 0x31:
-			// SWAP C
-			r.set(REGISTERS.C, alu.swap(r.get(REGISTERS.C)));
-			break;
-		case 0x32:
-			// SWAP D
-			r.set(REGISTERS.D, alu.swap(r.get(REGISTERS.D)));
-			break;
-		case 0x33:
-			// SWAP E
-			r.set(REGISTERS.E, alu.swap(r.get(REGISTERS.E)));
-			break;
-		case 0x34:
-			// SWAP H
-			r.set(REGISTERS.H, alu.swap(r.get(REGISTERS.H)));
-			break;
-		case 0x35:
-			// SWAP L
-			r.set(REGISTERS.L, alu.swap(r.get(REGISTERS.L)));
-			break;
-		case 0x36:
-			// SWAP (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.swap(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x37:
-			// SWAP A
-			r.set(REGISTERS.A, alu.swap(r.get(REGISTERS.A)));
-			break;
-		case 0x38:
-			// SRL B
-			r.set(REGISTERS.B, alu.shiftRight(r.get(REGISTERS.B)));
-			break;
-		case 0x39:
-			// SRL C
-			r.set(REGISTERS.C, alu.shiftRight(r.get(REGISTERS.C)));
-			break;
-		case 0x3A:
-			// SRL D
-			r.set(REGISTERS.D, alu.shiftRight(r.get(REGISTERS.D)));
-			break;
-		case 0x3B:
-			// SRL E
-			r.set(REGISTERS.E, alu.shiftRight(r.get(REGISTERS.E)));
-			break;
-		case 0x3C:
-			// SRL H
-			r.set(REGISTERS.H, alu.shiftRight(r.get(REGISTERS.H)));
-			break;
-		case 0x3D:
-			// SRL L
-			r.set(REGISTERS.L, alu.shiftRight(r.get(REGISTERS.L)));
-			break;
-		case 0x3E:
-			// SRL (HL)
-			m.writeByte(r.getWord(REGISTERS.HL),
-					alu.shiftRight(m.readByte(r.getWord(REGISTERS.HL))));
-			break;
-		case 0x3F:
-			// SRL A
-			r.set(REGISTERS.A, alu.shiftRight(r.get(REGISTERS.A)));
-			break;
-		case 0x40:
-		case 0x41:
-		case 0x42:
-		case 0x43:
-		case 0x44:
-		case 0x45:
-		case 0x46:
-		case 0x47:
-		case 0x48:
-		case 0x49:
-		case 0x4A:
-		case 0x4B:
-		case 0x4C:
-		case 0x4D:
-		case 0x4E:
-		case 0x4F:
-		case 0x50:
-		case 0x51:
-		case 0x52:
-		case 0x53:
-		case 0x54:
-		case 0x55:
-		case 0x56:
-		case 0x57:
-		case 0x58:
-		case 0x59:
-		case 0x5A:
-		case 0x5B:
-		case 0x5C:
-		case 0x5D:
-		case 0x5E:
-		case 0x5F:
-		case 0x60:
-		case 0x61:
-		case 0x62:
-		case 0x63:
-		case 0x64:
-		case 0x65:
-		case 0x66:
-		case 0x67:
-		case 0x68:
-		case 0x69:
-		case 0x6A:
-		case 0x6B:
-		case 0x6C:
-		case 0x6D:
-		case 0x6E:
-		case 0x6F:
-		case 0x70:
-		case 0x71:
-		case 0x72:
-		case 0x73:
-		case 0x74:
-		case 0x75:
-		case 0x76:
-		case 0x77:
-		case 0x78:
-		case 0x79:
-		case 0x7A:
-		case 0x7B:
-		case 0x7C:
-		case 0x7D:
-		case 0x7E:
-		case 0x7F:
-			bitTest(opcode);
-			break;
-		case 0x80:
-		case 0x81:
-		case 0x82:
-		case 0x83:
-		case 0x84:
-		case 0x85:
-		case 0x86:
-		case 0x87:
-		case 0x88:
-		case 0x89:
-		case 0x8A:
-		case 0x8B:
-		case 0x8C:
-		case 0x8D:
-		case 0x8E:
-		case 0x8F:
-		case 0x90:
-		case 0x91:
-		case 0x92:
-		case 0x93:
-		case 0x94:
-		case 0x95:
-		case 0x96:
-		case 0x97:
-		case 0x98:
-		case 0x99:
-		case 0x9A:
-		case 0x9B:
-		case 0x9C:
-		case 0x9D:
-		case 0x9E:
-		case 0x9F:
-		case 0xA0:
-		case 0xA1:
-		case 0xA2:
-		case 0xA3:
-		case 0xA4:
-		case 0xA5:
-		case 0xA6:
-		case 0xA7:
-		case 0xA8:
-		case 0xA9:
-		case 0xAA:
-		case 0xAB:
-		case 0xAC:
-		case 0xAD:
-		case 0xAE:
-		case 0xAF:
-		case 0xB0:
-		case 0xB1:
-		case 0xB2:
-		case 0xB3:
-		case 0xB4:
-		case 0xB5:
-		case 0xB6:
-		case 0xB7:
-		case 0xB8:
-		case 0xB9:
-		case 0xBA:
-		case 0xBB:
-		case 0xBC:
-		case 0xBD:
-		case 0xBE:
-		case 0xBF:
-			resetBit(opcode);
-			break;
-		case 0xC0:
-		case 0xC1:
-		case 0xC2:
-		case 0xC3:
-		case 0xC4:
-		case 0xC5:
-		case 0xC6:
-		case 0xC7:
-		case 0xC8:
-		case 0xC9:
-		case 0xCA:
-		case 0xCB:
-		case 0xCC:
-		case 0xCD:
-		case 0xCE:
-		case 0xCF:
-		case 0xD0:
-		case 0xD1:
-		case 0xD2:
-		case 0xD3:
-		case 0xD4:
-		case 0xD5:
-		case 0xD6:
-		case 0xD7:
-		case 0xD8:
-		case 0xD9:
-		case 0xDA:
-		case 0xDB:
-		case 0xDC:
-		case 0xDD:
-		case 0xDE:
-		case 0xDF:
-		case 0xE0:
-		case 0xE1:
-		case 0xE2:
-		case 0xE3:
-		case 0xE4:
-		case 0xE5:
-		case 0xE6:
-		case 0xE7:
-		case 0xE8:
-		case 0xE9:
-		case 0xEA:
-		case 0xEB:
-		case 0xEC:
-		case 0xED:
-		case 0xEE:
-		case 0xEF:
-		case 0xF0:
-		case 0xF1:
-		case 0xF2:
-		case 0xF3:
-		case 0xF4:
-		case 0xF5:
-		case 0xF6:
-		case 0xF7:
-		case 0xF8:
-		case 0xF9:
-		case 0xFA:
-		case 0xFB:
-		case 0xFC:
-		case 0xFD:
-		case 0xFE:
-		case 0xFF:
-			setBit(opcode);
-			break;
-		default:
-			throw new UnsupportedOpcodeException("Opcode "
-					+ Integer.toHexString(opcode) + " not supported.");
+	private void initExtendedOperations() {
+		// RLC B
+		extendedOperations[0x00] = operand -> {
+			r.setB(alu.rotateLeftCarry(r.getB()));
+		};
+		// RLC C
+		extendedOperations[0x01] = operand -> {
+			r.setC(alu.rotateLeftCarry(r.getC()));
+		};
+		// RLC D
+		extendedOperations[0x02] = operand -> {
+			r.setD(alu.rotateLeftCarry(r.getD()));
+		};
+		// RLC E
+		extendedOperations[0x03] = operand -> {
+			r.setE(alu.rotateLeftCarry(r.getE()));
+		};
+		// RLC H
+		extendedOperations[0x04] = operand -> {
+			r.setH(alu.rotateLeftCarry(r.getH()));
+		};
+		// RLC L
+		extendedOperations[0x05] = operand -> {
+			r.setL(alu.rotateLeftCarry(r.getL()));
+		};
+		// RLC (HL)
+		extendedOperations[0x06] = operand -> {
+			m.writeByte(r.getHL(), alu.rotateLeftCarry(m.readByte(r.getHL())));
+		};
+		// RLC A
+		extendedOperations[0x07] = operand -> {
+			r.setA(alu.rotateLeftCarry(r.getA()));
+		};
+		// RRC B
+		extendedOperations[0x08] = operand -> {
+			r.setB(alu.rotateRightCarry(r.getB()));
+		};
+		// RRC C
+		extendedOperations[0x09] = operand -> {
+			r.setC(alu.rotateRightCarry(r.getC()));
+		};
+		// RRC D
+		extendedOperations[0x0A] = operand -> {
+			r.setD(alu.rotateRightCarry(r.getD()));
+		};
+		// RRC E
+		extendedOperations[0x0B] = operand -> {
+			r.setE(alu.rotateRightCarry(r.getE()));
+		};
+		// RLC H
+		extendedOperations[0x0C] = operand -> {
+			r.setH(alu.rotateLeftCarry(r.getH()));
+		};
+		// RRC L
+		extendedOperations[0x0D] = operand -> {
+			r.setL(alu.rotateRightCarry(r.getL()));
+		};
+		// RRC (HL)
+		extendedOperations[0x0E] = operand -> {
+			m.writeByte(r.getHL(), alu.rotateRightCarry(m.readByte(r.getHL())));
+		};
+		// RRC A
+		extendedOperations[0x0F] = operand -> {
+			r.setA(alu.rotateRightCarry(r.getA()));
+		};
+		// RL B
+		extendedOperations[0x10] = operand -> {
+			r.setB(alu.rotateLeft(r.getB()));
+		};
+		// RL C
+		extendedOperations[0x11] = operand -> {
+			r.setC(alu.rotateLeft(r.getC()));
+		};
+		// RL D
+		extendedOperations[0x12] = operand -> {
+			r.setD(alu.rotateLeft(r.getD()));
+		};
+		// RL E
+		extendedOperations[0x13] = operand -> {
+			r.setE(alu.rotateLeft(r.getE()));
+		};
+		// RL H
+		extendedOperations[0x14] = operand -> {
+			r.setH(alu.rotateLeft(r.getH()));
+		};
+		// RL L
+		extendedOperations[0x15] = operand -> {
+			r.setL(alu.rotateLeft(r.getL()));
+		};
+		// RL (HL)
+		extendedOperations[0x16] = operand -> {
+			m.writeByte(r.getHL(), alu.rotateLeft(m.readByte(r.getHL())));
+		};
+		// RL A
+		extendedOperations[0x17] = operand -> {
+			r.setA(alu.rotateLeft(r.getA()));
+		};
+		// RR B
+		extendedOperations[0x18] = operand -> {
+			r.setB(alu.rotateRight(r.getB()));
+		};
+		// RR C
+		extendedOperations[0x19] = operand -> {
+			r.setC(alu.rotateRight(r.getC()));
+		};
+		// RR D
+		extendedOperations[0x1A] = operand -> {
+			r.setD(alu.rotateRight(r.getD()));
+		};
+		// RR E
+		extendedOperations[0x1B] = operand -> {
+			r.setE(alu.rotateRight(r.getE()));
+		};
+		// RL H
+		extendedOperations[0x1C] = operand -> {
+			r.setH(alu.rotateLeft(r.getH()));
+		};
+		// RR L
+		extendedOperations[0x1D] = operand -> {
+			r.setL(alu.rotateRight(r.getL()));
+		};
+		// RR (HL)
+		extendedOperations[0x1E] = operand -> {
+			m.writeByte(r.getHL(), alu.rotateRight(m.readByte(r.getHL())));
+		};
+		// RR A
+		extendedOperations[0x1F] = operand -> {
+			r.setA(alu.rotateRight(r.getA()));
+		};
+		// SLA B
+		extendedOperations[0x20] = operand -> {
+			r.setB(alu.shiftLeftSigned(r.getB()));
+		};
+		// SLA C
+		extendedOperations[0x21] = operand -> {
+			r.setC(alu.shiftLeftSigned(r.getC()));
+		};
+		// SLA D
+		extendedOperations[0x22] = operand -> {
+			r.setD(alu.shiftLeftSigned(r.getD()));
+		};
+		// SLA E
+		extendedOperations[0x23] = operand -> {
+			r.setE(alu.shiftLeftSigned(r.getE()));
+		};
+		// SLA H
+		extendedOperations[0x24] = operand -> {
+			r.setH(alu.shiftLeftSigned(r.getH()));
+		};
+		// SLA L
+		extendedOperations[0x25] = operand -> {
+			r.setL(alu.shiftLeftSigned(r.getL()));
+		};
+		// SLA (HL)
+		extendedOperations[0x26] = operand -> {
+			m.writeByte(r.getHL(), alu.shiftLeftSigned(m.readByte(r.getHL())));
+		};
+		// SLA A
+		extendedOperations[0x27] = operand -> {
+			r.setA(alu.shiftLeftSigned(r.getA()));
+		};
+		// SRA B
+		extendedOperations[0x28] = operand -> {
+			r.setB(alu.shiftRightSigned(r.getB()));
+		};
+		// SRA C
+		extendedOperations[0x29] = operand -> {
+			r.setC(alu.shiftRightSigned(r.getC()));
+		};
+		// SRA D
+		extendedOperations[0x2A] = operand -> {
+			r.setD(alu.shiftRightSigned(r.getD()));
+		};
+		// SRA E
+		extendedOperations[0x2B] = operand -> {
+			r.setE(alu.shiftRightSigned(r.getE()));
+		};
+		// SRA H
+		extendedOperations[0x2C] = operand -> {
+			r.setH(alu.shiftRightSigned(r.getH()));
+		};
+		// SRA L
+		extendedOperations[0x2D] = operand -> {
+			r.setL(alu.shiftRightSigned(r.getL()));
+		};
+		// SRA (HL)
+		extendedOperations[0x2E] = operand -> {
+			m.writeByte(r.getHL(), alu.shiftRightSigned(m.readByte(r.getHL())));
+		};
+		// SRA A
+		extendedOperations[0x2F] = operand -> {
+			r.setA(alu.shiftRightSigned(r.getA()));
+		};
+		// SWAP B
+		extendedOperations[0x30] = operand -> {
+			r.setB(alu.swap(r.getB()));
+		};
+		// SWAP C
+		extendedOperations[0x31] = operand -> {
+			r.setC(alu.swap(r.getC()));
+		};
+		// SWAP D
+		extendedOperations[0x32] = operand -> {
+			r.setD(alu.swap(r.getD()));
+		};
+		// SWAP E
+		extendedOperations[0x33] = operand -> {
+			r.setE(alu.swap(r.getE()));
+		};
+		// SWAP H
+		extendedOperations[0x34] = operand -> {
+			r.setH(alu.swap(r.getH()));
+		};
+		// SWAP L
+		extendedOperations[0x35] = operand -> {
+			r.setL(alu.swap(r.getL()));
+		};
+		// SWAP (HL)
+		extendedOperations[0x36] = operand -> {
+			m.writeByte(r.getHL(), alu.swap(m.readByte(r.getHL())));
+		};
+		// SWAP A
+		extendedOperations[0x37] = operand -> {
+			r.setA(alu.swap(r.getA()));
+		};
+		// SRL B
+		extendedOperations[0x38] = operand -> {
+			r.setB(alu.shiftRight(r.getB()));
+		};
+		// SRL C
+		extendedOperations[0x39] = operand -> {
+			r.setC(alu.shiftRight(r.getC()));
+		};
+		// SRL D
+		extendedOperations[0x3A] = operand -> {
+			r.setD(alu.shiftRight(r.getD()));
+		};
+		// SRL E
+		extendedOperations[0x3B] = operand -> {
+			r.setE(alu.shiftRight(r.getE()));
+		};
+		// SRL H
+		extendedOperations[0x3C] = operand -> {
+			r.setH(alu.shiftRight(r.getH()));
+		};
+		// SRL L
+		extendedOperations[0x3D] = operand -> {
+			r.setL(alu.shiftRight(r.getL()));
+		};
+		// SRL (HL)
+		extendedOperations[0x3E] = operand -> {
+			m.writeByte(r.getHL(), alu.shiftRight(m.readByte(r.getHL())));
+		};
+		// SRL A
+		extendedOperations[0x3F] = operand -> {
+			r.setA(alu.shiftRight(r.getA()));
+		};
+		// BIT, RES and SET get one handler per bit and register, so nothing
+		// has to be decoded when they run
+		for (int i = 0; i < 8; i++) {
+			final int bit = i;
+			// BIT b B
+			extendedOperations[0x40 | bit << 3 | B] = operand -> {
+				alu.bitTest(bit, r.getB());
+			};
+			// BIT b C
+			extendedOperations[0x40 | bit << 3 | C] = operand -> {
+				alu.bitTest(bit, r.getC());
+			};
+			// BIT b D
+			extendedOperations[0x40 | bit << 3 | D] = operand -> {
+				alu.bitTest(bit, r.getD());
+			};
+			// BIT b E
+			extendedOperations[0x40 | bit << 3 | E] = operand -> {
+				alu.bitTest(bit, r.getE());
+			};
+			// BIT b H
+			extendedOperations[0x40 | bit << 3 | H] = operand -> {
+				alu.bitTest(bit, r.getH());
+			};
+			// BIT b L
+			extendedOperations[0x40 | bit << 3 | L] = operand -> {
+				alu.bitTest(bit, r.getL());
+			};
+			// BIT b (HL)
+			extendedOperations[0x40 | bit << 3 | HL] = operand -> {
+				alu.bitTest(bit, m.readByte(r.getHL()));
+			};
+			// BIT b A
+			extendedOperations[0x40 | bit << 3 | A] = operand -> {
+				alu.bitTest(bit, r.getA());
+			};
+			// RES b B
+			extendedOperations[0x80 | bit << 3 | B] = operand -> {
+				r.setB(alu.resetBit(bit, r.getB()));
+			};
+			// RES b C
+			extendedOperations[0x80 | bit << 3 | C] = operand -> {
+				r.setC(alu.resetBit(bit, r.getC()));
+			};
+			// RES b D
+			extendedOperations[0x80 | bit << 3 | D] = operand -> {
+				r.setD(alu.resetBit(bit, r.getD()));
+			};
+			// RES b E
+			extendedOperations[0x80 | bit << 3 | E] = operand -> {
+				r.setE(alu.resetBit(bit, r.getE()));
+			};
+			// RES b H
+			extendedOperations[0x80 | bit << 3 | H] = operand -> {
+				r.setH(alu.resetBit(bit, r.getH()));
+			};
+			// RES b L
+			extendedOperations[0x80 | bit << 3 | L] = operand -> {
+				r.setL(alu.resetBit(bit, r.getL()));
+			};
+			// RES b (HL)
+			extendedOperations[0x80 | bit << 3 | HL] = operand -> {
+				int addr = r.getHL();
+				m.writeByte(addr, alu.resetBit(bit, m.readByte(addr)));
+			};
+			// RES b A
+			extendedOperations[0x80 | bit << 3 | A] = operand -> {
+				r.setA(alu.resetBit(bit, r.getA()));
+			};
+			// SET b B
+			extendedOperations[0xC0 | bit << 3 | B] = operand -> {
+				r.setB(alu.setBit(bit, r.getB()));
+			};
+			// SET b C
+			extendedOperations[0xC0 | bit << 3 | C] = operand -> {
+				r.setC(alu.setBit(bit, r.getC()));
+			};
+			// SET b D
+			extendedOperations[0xC0 | bit << 3 | D] = operand -> {
+				r.setD(alu.setBit(bit, r.getD()));
+			};
+			// SET b E
+			extendedOperations[0xC0 | bit << 3 | E] = operand -> {
+				r.setE(alu.setBit(bit, r.getE()));
+			};
+			// SET b H
+			extendedOperations[0xC0 | bit << 3 | H] = operand -> {
+				r.setH(alu.setBit(bit, r.getH()));
+			};
+			// SET b L
+			extendedOperations[0xC0 | bit << 3 | L] = operand -> {
+				r.setL(alu.setBit(bit, r.getL()));
+			};
+			// SET b (HL)
+			extendedOperations[0xC0 | bit << 3 | HL] = operand -> {
+				int addr = r.getHL();
+				m.writeByte(addr, alu.setBit(bit, m.readByte(addr)));
+			};
+			// SET b A
+			extendedOperations[0xC0 | bit << 3 | A] = operand -> {
+				r.setA(alu.setBit(bit, r.getA()));
+			};
 		}
 	}
 
-	private int nextInstruction() throws IllegalMemoryAccessException {
-
-		return m.readByte(pc++);
-	}
-
-	private void bitTest(int opcode) throws IllegalMemoryAccessException {
-		REGISTERS register = REGISTERS.A;
-		switch (opcode & 0x0F) {
-		case 0x00:
-		case 0x08:
-			register = REGISTERS.B;
-			break;
-		case 0x01:
-		case 0x09:
-			register = REGISTERS.C;
-			break;
-		case 0x02:
-		case 0x0A:
-			register = REGISTERS.D;
-			break;
-		case 0x03:
-		case 0x0B:
-			register = REGISTERS.E;
-			break;
-		case 0x04:
-		case 0x0C:
-			register = REGISTERS.H;
-			break;
-		case 0x05:
-		case 0x0D:
-			register = REGISTERS.L;
-			break;
-		case 0x06:
-		case 0x0E:
-			register = REGISTERS.HL;
-			break;
-		case 0x07:
-		case 0x0F:
-			register = REGISTERS.A;
-			break;
-		}
-		int bit = 0;
-		switch (opcode & 0xF0) {
-		case 0x40:
-			bit = 0;
-			break;
-		case 0x50:
-			bit = 2;
-			break;
-		case 0x60:
-			bit = 4;
-			break;
-		case 0x70:
-			bit = 6;
-			break;
-		}
-		if ((opcode & 0x0F) > 0x07) {
-			bit++;
-		}
-		if (register != REGISTERS.HL) {
-			alu.bitTest(bit, r.get(register));
-		} else {
-			alu.bitTest(bit, m.readByte(r.getWord(REGISTERS.HL)));
-		}
+	/**
+	 * Fused versions of common loops. Each one must leave the same state and
+	 * tick the same cycles as its instructions one by one. Flags that are
+	 * overwritten later in the sequence are not computed. Fill and copy loops
+	 * also get a bulk version, which must leave the state the given number
+	 * of iterations would leave, but does not tick.
+	 */
+	private void initSuperinstructions() {
+		// LDD (HL) A; BIT 7 H; JR NZ e
+		instructionCache.addSuperinstruction(operand -> {
+			int hl = r.getHL();
+			m.writeByte(hl, r.getA());
+			hl = (hl - 1) & 0xFFFF;
+			r.setHL(hl);
+			alu.bitTest(7, hl >>> 8);
+			if ((hl & 0x8000) != 0) {
+				pc += (byte) operand;
+			}
+			tick(3);
+		}, (operand, maxIterations) -> {
+			// fill downwards until bit 7 of H is cleared
+			int hl = r.getHL();
+			int iterations = Math.min(maxIterations, hl - 0x7FFF);
+			if (iterations <= 0
+					|| !m.fill(hl - iterations + 1, iterations, r.getA())) {
+				return 0;
+			}
+			hl -= iterations;
+			r.setHL(hl);
+			alu.bitTest(7, hl >>> 8);
+			if ((hl & 0x8000) != 0) {
+				pc += (byte) operand;
+			}
+			return iterations;
+		}, 0x32, 0xCB7C, 0x20);
+		// LD A (DE); INC DE; LDI (HL) A; DEC B; JR NZ e
+		instructionCache.addSuperinstruction(operand -> {
+			int de = r.getDE();
+			int a = m.readByte(de);
+			r.setA(a);
+			r.setDE((de + 1) & 0xFFFF);
+			tick(3);
+			int hl = r.getHL();
+			m.writeByte(hl, a);
+			r.setHL((hl + 1) & 0xFFFF);
+			int b = alu.decByte(r.getB());
+			r.setB(b);
+			if (b != 0) {
+				pc += (byte) operand;
+			}
+			tick(4);
+		}, (operand, maxIterations) -> {
+			// copy B bytes, or 256 if B is 0
+			int b = r.getB();
+			int iterations = Math.min(maxIterations, b == 0 ? 0x100 : b);
+			int de = r.getDE();
+			int hl = r.getHL();
+			if (!m.copy(de, hl, iterations)) {
+				return 0;
+			}
+			r.setA(m.readByte(de + iterations - 1));
+			r.setDE((de + iterations) & 0xFFFF);
+			r.setHL((hl + iterations) & 0xFFFF);
+			// flags as left by the last DEC B
+			b = alu.decByte((b - iterations + 1) & 0xFF);
+			r.setB(b);
+			if (b != 0) {
+				pc += (byte) operand;
+			}
+			return iterations;
+		}, 0x1A, 0x13, 0x22, 0x05, 0x20);
+		// DEC BC; LD A B; OR C; JR NZ e
+		instructionCache.addSuperinstruction(operand -> {
+			int bc = (r.getBC() - 1) & 0xFFFF;
+			r.setBC(bc);
+			r.setA(alu.or(bc >>> 8, bc & 0xFF));
+			if (bc != 0) {
+				pc += (byte) operand;
+			}
+			tick(5);
+		}, null, 0x0B, 0x78, 0xB1, 0x20);
 	}
 
-	private void resetBit(int opcode) throws IllegalMemoryAccessException,
-			IllegalRegisterAccessException {
-		REGISTERS register = REGISTERS.A;
-		switch (opcode & 0x0F) {
-		case 0x00:
-		case 0x08:
-			register = REGISTERS.B;
-			break;
-		case 0x01:
-		case 0x09:
-			register = REGISTERS.C;
-			break;
-		case 0x02:
-		case 0x0A:
-			register = REGISTERS.D;
-			break;
-		case 0x03:
-		case 0x0B:
-			register = REGISTERS.E;
-			break;
-		case 0x04:
-		case 0x0C:
-			register = REGISTERS.H;
-			break;
-		case 0x05:
-		case 0x0D:
-			register = REGISTERS.L;
-			break;
-		case 0x06:
-		case 0x0E:
-			register = REGISTERS.HL;
-			break;
-		case 0x07:
-		case 0x0F:
-			register = REGISTERS.A;
-			break;
-		}
-		int bit = 0;
-		switch (opcode & 0xF0) {
-		case 0x40:
-			bit = 0;
-			break;
-		case 0x50:
-			bit = 2;
-			break;
-		case 0x60:
-			bit = 4;
-			break;
-		case 0x70:
-			bit = 6;
-			break;
-		}
-		if ((opcode & 0x0F) > 0x07) {
-			bit++;
-		}
-		if (register != REGISTERS.HL) {
-			r.set(register, alu.resetBit(bit, r.get(register)));
-		} else {
-			r.set(register,
-					alu.resetBit(bit, m.readByte(r.getWord(REGISTERS.HL))));
-		}
-	}
+	private int nextInstruction() {
 
-	private void setBit(int opcode) throws IllegalMemoryAccessException,
-			IllegalRegisterAccessException {
-		REGISTERS register = REGISTERS.A;
-		switch (opcode & 0x0F) {
-		case 0x00:
-		case 0x08:
-			register = REGISTERS.B;
-			break;
-		case 0x01:
-		case 0x09:
-			register = REGISTERS.C;
-			break;
-		case 0x02:
-		case 0x0A:
-			register = REGISTERS.D;
-			break;
-		case 0x03:
-		case 0x0B:
-			register = REGISTERS.E;
-			break;
-		case 0x04:
-		case 0x0C:
-			register = REGISTERS.H;
-			break;
-		case 0x05:
-		case 0x0D:
-			register = REGISTERS.L;
-			break;
-		case 0x06:
-		case 0x0E:
-			register = REGISTERS.HL;
-			break;
-		case 0x07:
-		case 0x0F:
-			register = REGISTERS.A;
-			break;
-		}
-		int bit = 0;
-		switch (opcode & 0xF0) {
-		case 0x40:
-			bit = 0;
-			break;
-		case 0x50:
-			bit = 2;
-			break;
-		case 0x60:
-			bit = 4;
-			break;
-		case 0x70:
-			bit = 6;
-			break;
-		}
-		if ((opcode & 0x0F) > 0x07) {
-			bit++;
-		}
-		if (register != REGISTERS.HL) {
-			r.set(register, alu.setBit(bit, r.get(register)));
-		} else {
-			r.set(register,
-					alu.setBit(bit, m.readByte(r.getWord(REGISTERS.HL))));
-		}
+		return m.readByte(pc++);
 	}
 
 	private void tick(int m) {
 		clock.m += m;
 		clock.t += m * 4;
-		gpu.tick(m);
+		scheduler.advance(m);
 	}
 
 }
@@ -0,0 +1,42 @@
+package gbemu.cpu;
+
+/**
+ * An instruction with its immediate operand already fetched from memory.
+ * ROM instructions are shared between CPUs, so the handler is only named by
+ * its index into the CPU's operations.
+ */
+class DecodedInstruction {
+
+	final int address;
+	// first opcode byte
+	final int opcode;
+	// immediate operand, or the second opcode byte of CB instructions
+	final int operand;
+	final int length;
+	// opcode, or 0x100 + the second byte of CB instructions
+	final int handler;
+	// machine cycles, measured when the instruction first runs. Conditional
+	// jumps are only measured when taken, so every CPU measures the same.
+	int cycles;
+	// set if this instruction starts an idle loop
+	IdleLoop idleLoop;
+	// set if this instruction starts a fused sequence
+	Superinstruction superinstruction;
+
+	DecodedInstruction(int address, int opcode, int operand, int length) {
+		this.address = address;
+		this.opcode = opcode;
+		this.operand = operand;
+		this.length = length;
+		handler = opcode == 0xCB ? 0x100 | operand : opcode;
+		cycles = -1;
+	}
+
+	/**
+	 * Returns the opcode, or 0xCBnn for CB instructions.
+	 */
+	int key() {
+		return opcode == 0xCB ? 0xCB00 | operand : opcode;
+	}
+
+}
@@ -0,0 +1,83 @@
+package gbemu.cpu;
+
+/**
+ * A polling loop of the form
+ * 
+ * <pre>
+ * loop: LDH A,(n)
+ *       CP m / AND m
+ *       JR cc,loop
+ * </pre>
+ * 
+ * on an IO register that only changes on scheduler events. The loop has no
+ * side effects, every iteration that reads the same value leaves the CPU in
+ * the same state.
+ */
+class IdleLoop {
+
+	// polled IO register
+	final int address;
+	final DecodedInstruction[] body;
+
+	private IdleLoop(int address, DecodedInstruction[] body) {
+		this.address = address;
+		this.body = body;
+	}
+
+	/**
+	 * Returns the number of machine cycles of one iteration, or -1 if the loop
+	 * has not run completely yet.
+	 */
+	int cycles() {
+		int cycles = 0;
+		for (DecodedInstruction instruction : body) {
+			if (instruction.cycles < 0) {
+				return -1;
+			}
+			cycles += instruction.cycles;
+		}
+		return cycles;
+	}
+
+	/**
+	 * Returns the idle loop starting with load, or null if the code at its
+	 * address is not one.
+	 */
+	static IdleLoop find(InstructionCache cache, DecodedInstruction load) {
+		int address;
+		if (load.opcode == 0xF0) {
+			address = 0xFF00 + load.operand;
+		} else if (load.opcode == 0xFA) {
+			address = load.operand;
+		} else {
+			return null;
+		}
+		if (address < 0xFF00 || address > 0xFF7F) {
+			return null;
+		}
+		// DIV and TIMA are derived from the clock and change between
+		// scheduler events, so skipping would miss the awaited value
+		if (address == 0xFF04 || address == 0xFF05) {
+			return null;
+		}
+
+		DecodedInstruction test = cache.get(load.address + load.length);
+		if (test == null || (test.opcode != 0xFE && test.opcode != 0xE6)) {
+			return null;
+		}
+		DecodedInstruction jump = cache.get(test.address + test.length);
+		// JR NZ, JR Z, JR NC or JR C back to the load
+		if (jump == null || (jump.opcode & 0xE7) != 0x20) {
+			return null;
+		}
+		if (jump.address + jump.length + (byte) jump.operand != load.address) {
+			return null;
+		}
+		if (!InstructionCache.inSameRegion(load.address, jump.address)) {
+			return null;
+		}
+		return new IdleLoop(address, new DecodedInstruction[] { load, test,
+				jump });
+	}
+
+}
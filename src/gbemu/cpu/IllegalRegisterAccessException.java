@@ -1,6 +1,6 @@
 package gbemu.cpu;
 
-public class IllegalRegisterAccessException extends Exception {
+public class IllegalRegisterAccessException extends RuntimeException {
 
 	private String message;
 
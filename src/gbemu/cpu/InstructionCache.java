@@ -0,0 +1,185 @@
+package gbemu.cpu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gbemu.memory.Cart;
+
+/**
+ * Decodes instructions and keeps the decoded form of everything in the BIOS
+ * and the ROM banks, which never change. Entries are created the first time
+ * an address is executed. The ROM entries are shared by all CPUs running the
+ * same cart, see RomCode.
+ */
+class InstructionCache {
+
+	// instruction length by opcode, 0 for removed opcodes
+	static final int[] LENGTHS = new int[0x100];
+	// conditional jumps, calls and returns
+	static final boolean[] CONDITIONAL = new boolean[0x100];
+
+	static {
+		Arrays.fill(LENGTHS, 1);
+		for (int opcode : new int[] { 0x06, 0x0E, 0x16, 0x1E, 0x26, 0x2E,
+				0x36, 0x3E, 0x18, 0x20, 0x28, 0x30, 0x38, 0xC6, 0xCE, 0xD6,
+				0xDE, 0xE6, 0xEE, 0xF6, 0xFE, 0xE0, 0xF0, 0xE8, 0xF8, 0xCB }) {
+			LENGTHS[opcode] = 2;
+		}
+		for (int opcode : new int[] { 0x01, 0x11, 0x21, 0x31, 0x08, 0xC2,
+				0xC3, 0xC4, 0xCA, 0xCC, 0xCD, 0xD2, 0xD4, 0xDA, 0xDC, 0xEA,
+				0xFA }) {
+			LENGTHS[opcode] = 3;
+		}
+		for (int opcode : new int[] { 0xD3, 0xDB, 0xDD, 0xE3, 0xE4, 0xEB,
+				0xEC, 0xED, 0xF2, 0xF4, 0xFC, 0xFD }) {
+			LENGTHS[opcode] = 0;
+		}
+		for (int opcode : new int[] { 0x20, 0x28, 0x30, 0x38, 0xC0, 0xC2,
+				0xC4, 0xC8, 0xCA, 0xCC, 0xD0, 0xD2, 0xD4, 0xD8, 0xDA, 0xDC }) {
+			CONDITIONAL[opcode] = true;
+		}
+	}
+
+	private MMU m;
+
+	// instruction sequences that are run as one operation, CB instructions
+	// are written as 0xCBnn
+	private List<int[]> patterns = new ArrayList<>();
+	private List<Operation> fusedOperations = new ArrayList<>();
+	private List<LoopOperation> loopOperations = new ArrayList<>();
+
+	// the boot ROM can be written while it is mapped, so it is not shared
+	private DecodedInstruction[] bios = new DecodedInstruction[0x100];
+	private Cart cart;
+	private RomCode rom;
+
+	InstructionCache(MMU m) {
+		this.m = m;
+	}
+
+	/**
+	 * Returns the decoded instruction at a BIOS or ROM address, or null if
+	 * addr is not in ROM or holds a removed opcode.
+	 */
+	DecodedInstruction get(int addr) {
+		DecodedInstruction[] cache;
+		int index;
+		if (addr < 0x100 && m.isInBios()) {
+			cache = bios;
+			index = addr;
+		} else if (addr < 0x4000) {
+			cache = romCode().instructions(m.getLowRomBank());
+			index = addr;
+		} else if (addr < 0x8000) {
+			cache = romCode().instructions(m.getRomBank());
+			index = addr - 0x4000;
+		} else {
+			return null;
+		}
+		DecodedInstruction instruction = cache[index];
+		if (instruction == null) {
+			instruction = decode(addr);
+			if (instruction != null) {
+				// complete before other CPUs can see it
+				instruction.idleLoop = IdleLoop.find(this, instruction);
+				instruction.superinstruction = fuse(instruction);
+				cache[index] = instruction;
+			}
+		}
+		return instruction;
+	}
+
+	/**
+	 * Returns the shared code of the inserted cart.
+	 */
+	RomCode romCode() {
+		Cart inserted = m.getCart();
+		if (inserted != cart) {
+			cart = inserted;
+			rom = RomCode.of(inserted);
+		}
+		return rom;
+	}
+
+	/**
+	 * Runs every occurrence of pattern in the ROM with operation instead.
+	 * Where the pattern is a loop on its own, loop may run many iterations
+	 * at once. loop can be null.
+	 */
+	void addSuperinstruction(Operation operation, LoopOperation loop,
+			int... pattern) {
+		patterns.add(pattern);
+		fusedOperations.add(operation);
+		loopOperations.add(loop);
+	}
+
+	private Superinstruction fuse(DecodedInstruction head) {
+		for (int i = 0; i < patterns.size(); i++) {
+			int[] pattern = patterns.get(i);
+			if (pattern[0] != head.key()) {
+				continue;
+			}
+			DecodedInstruction[] body = new DecodedInstruction[pattern.length];
+			body[0] = head;
+			int j = 1;
+			for (; j < pattern.length; j++) {
+				DecodedInstruction previous = body[j - 1];
+				body[j] = get(previous.address + previous.length);
+				if (body[j] == null || body[j].key() != pattern[j]) {
+					break;
+				}
+			}
+			if (j == pattern.length
+					&& inSameRegion(head.address, body[j - 1].address)) {
+				return new Superinstruction(body, i,
+						loopOperations.get(i) != null);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns whether both addresses are in the BIOS or in the same ROM bank.
+	 */
+	static boolean inSameRegion(int addr1, int addr2) {
+		return (addr1 ^ addr2) >>> 14 == 0
+				&& (addr1 < 0x100) == (addr2 < 0x100);
+	}
+
+	Operation getFusedOperation(Superinstruction superinstruction) {
+		return fusedOperations.get(superinstruction.pattern);
+	}
+
+	LoopOperation getLoopOperation(Superinstruction superinstruction) {
+		return loopOperations.get(superinstruction.pattern);
+	}
+
+	/**
+	 * Decodes the instruction at addr without caching it. Returns null for
+	 * removed opcodes.
+	 */
+	DecodedInstruction decode(int addr) {
+		int opcode = m.readByte(addr);
+		switch (LENGTHS[opcode]) {
+		case 1:
+			return new DecodedInstruction(addr, opcode, 0, 1);
+		case 2:
+			return new DecodedInstruction(addr, opcode, m.readByte(addr + 1),
+					2);
+		case 3:
+			return new DecodedInstruction(addr, opcode, m.readWord(addr + 1),
+					3);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Drops the BIOS entries. The ROM entries are kept, they are shared.
+	 */
+	void clear() {
+		Arrays.fill(bios, null);
+	}
+
+}
@@ -0,0 +1,83 @@
+package gbemu.cpu;
+
+/**
+ * Ring buffer of the last executed instructions for crash reports. Every
+ * entry keeps the address, the opcode and the registers as they were before
+ * the instruction ran. F is not recorded, because that would force the ALU
+ * to evaluate its lazy flags on every instruction.
+ */
+public class InstructionHistory {
+
+	private static final int ADDRESS = 0;
+	private static final int OPCODE = 1;
+	private static final int A = 2;
+	private static final int BC = 3;
+	private static final int DE = 4;
+	private static final int HL = 5;
+	private static final int SP = 6;
+	private static final int ENTRY_SIZE = 7;
+
+	private int[] entries;
+	private int depth;
+	private int next;
+	private int size;
+
+	public InstructionHistory(int depth) {
+		setDepth(depth);
+	}
+
+	public void setDepth(int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Negative history depth "
+					+ depth);
+		}
+		this.depth = depth;
+		entries = new int[depth * ENTRY_SIZE];
+		clear();
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void clear() {
+		next = 0;
+		size = 0;
+	}
+
+	void record(int address, int opcode, Registers r, int sp) {
+		if (depth == 0) {
+			return;
+		}
+		int i = next * ENTRY_SIZE;
+		entries[i + ADDRESS] = address;
+		entries[i + OPCODE] = opcode;
+		entries[i + A] = r.getA();
+		entries[i + BC] = r.getBC();
+		entries[i + DE] = r.getDE();
+		entries[i + HL] = r.getHL();
+		entries[i + SP] = sp;
+		next++;
+		if (next == depth) {
+			next = 0;
+		}
+		if (size < depth) {
+			size++;
+		}
+	}
+
+	public void print() {
+		System.out.println("Previous instructions were:");
+		int first = size < depth ? 0 : next;
+		for (int n = 0; n < size; n++) {
+			int i = ((first + n) % depth) * ENTRY_SIZE;
+			System.out.println("0x" + Integer.toHexString(entries[i + ADDRESS])
+					+ ": " + Integer.toHexString(entries[i + OPCODE])
+					+ "\tA=" + Integer.toHexString(entries[i + A]) + " BC="
+					+ Integer.toHexString(entries[i + BC]) + " DE="
+					+ Integer.toHexString(entries[i + DE]) + " HL="
+					+ Integer.toHexString(entries[i + HL]) + " SP="
+					+ Integer.toHexString(entries[i + SP]));
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package gbemu.cpu;
+
+/**
+ * The interrupt enable (0xFFFF) and interrupt flag (0xFF0F) registers. The
+ * interrupts that are both requested and enabled are cached, so the CPU only
+ * has to compare one int against 0 after every instruction.
+ */
+public class InterruptController {
+
+	public static final int VBLANK = 0x01;
+	public static final int LCD_STAT = 0x02;
+	public static final int TIMER = 0x04;
+	public static final int SERIAL = 0x08;
+	public static final int JOYPAD = 0x10;
+
+	private int enabled;
+	private int requested;
+	private int pending;
+
+	public void request(int interrupt) {
+		requested |= interrupt;
+		pending = requested & enabled;
+	}
+
+	public int getEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(int value) {
+		enabled = value & 0x1F;
+		pending = requested & enabled;
+	}
+
+	public int getRequested() {
+		// the unused upper bits always read as 1
+		return requested | 0xE0;
+	}
+
+	public void setRequested(int value) {
+		requested = value & 0x1F;
+		pending = requested & enabled;
+	}
+
+	/**
+	 * Returns the interrupts that are requested and enabled.
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * Clears the pending interrupt with the highest priority and returns the
+	 * address of its handler.
+	 */
+	int acknowledge() {
+		int interrupt = Integer.numberOfTrailingZeros(pending);
+		requested &= ~(1 << interrupt);
+		pending = requested & enabled;
+		return 0x40 + interrupt * 8;
+	}
+
+}
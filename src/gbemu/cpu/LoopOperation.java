@@ -0,0 +1,12 @@
+package gbemu.cpu;
+
+interface LoopOperation {
+
+	/**
+	 * Runs up to maxIterations iterations of a fused loop at once and returns
+	 * how many were run, or 0 if the loop can not be accelerated right now.
+	 * pc and operand are the same as for the fused Operation.
+	 */
+	int execute(int operand, int maxIterations);
+
+}
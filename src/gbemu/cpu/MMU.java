@@ -1,6 +1,6 @@
 package gbemu.cpu;
 
-import gbemu.memory.IllegalMemoryAccessException;
+import gbemu.memory.Cart;
 import gbemu.memory.Memory;
 
 public class MMU {
@@ -15,26 +15,59 @@ public class MMU {
 		memory.leaveBios();
 	}
 
-	public int readByte(int addr) throws IllegalMemoryAccessException {
-		int value = memory.readByte(addr);
-		//System.out.println("Read byte " + Integer.toHexString(value)
-			//	+ " from address " + Integer.toHexString(addr));
-		return value;
+	public boolean isInBios() {
+		return memory.isInBios();
 	}
 
-	public int readWord(int addr) throws IllegalMemoryAccessException {
+	public int getRomBank() {
+		return memory.getRomBank();
+	}
+
+	public int getLowRomBank() {
+		return memory.getLowRomBank();
+	}
+
+	public Cart getCart() {
+		return memory.getCart();
+	}
+
+	public void setStrict(boolean strict) {
+		memory.setStrict(strict);
+	}
+
+	public boolean hasFault() {
+		return memory.hasFault();
+	}
+
+	public String getFaultMessage() {
+		return memory.getFaultMessage();
+	}
+
+	public void clearFault() {
+		memory.clearFault();
+	}
+
+	public boolean fill(int addr, int length, int value) {
+		return memory.fill(addr, length, value);
+	}
+
+	public boolean copy(int src, int dst, int length) {
+		return memory.copy(src, dst, length);
+	}
+
+	public int readByte(int addr) {
+		return memory.readByte(addr);
+	}
+
+	public int readWord(int addr) {
 		return (readByte(addr + 1) << 8 | readByte(addr));
 	}
 
-	public void writeByte(int addr, int value)
-			throws IllegalMemoryAccessException {
+	public void writeByte(int addr, int value) {
 		memory.writeByte(addr, value);
 	}
 
-	public void writeWord(int addr, int value)
-			throws IllegalMemoryAccessException {
-	//	System.out.println("Will write word " + Integer.toHexString(value)
-			//	+ " to address " + Integer.toHexString(addr));
+	public void writeWord(int addr, int value) {
 		writeByte(addr, value & 0xFF);
 		writeByte(addr + 1, value >> 8);
 	}
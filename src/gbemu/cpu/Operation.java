@@ -0,0 +1,12 @@
+package gbemu.cpu;
+
+interface Operation {
+
+	/**
+	 * Runs the instruction. pc already points behind the instruction and its
+	 * immediate operand, which is passed in. CB-prefixed instructions receive
+	 * the second opcode byte in the base table.
+	 */
+	void execute(int operand) throws UnsupportedOpcodeException;
+
+}
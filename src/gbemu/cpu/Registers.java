@@ -2,77 +2,117 @@ package gbemu.cpu;
 
 public class Registers {
 
-	public enum REGISTERS {
-		A, B, C, D, E, H, L, BC, HL, DE;
-	}
-
-	private int[] registers;
+	private int a;
+	private int b;
+	private int c;
+	private int d;
+	private int e;
+	private int h;
+	private int l;
 
 	protected Registers() {
-		registers = new int[7];
 	}
 
 	public void reset() {
-		registers = new int[7];
-	}
-
-	public void set(REGISTERS reg, int value)
-			throws IllegalRegisterAccessException {
-		if (value > 0xFF) {
-			throw new IllegalRegisterAccessException("Value "
-					+ Integer.toHexString(value) + " is too big for register "
-					+ reg);
-		}
-		registers[reg.ordinal()] = value;
-	}
-
-	public int get(REGISTERS reg) {
-		return registers[reg.ordinal()];
-	}
-
-	public void setWord(REGISTERS reg, int value)
-			throws IllegalRegisterAccessException {
-		if (value > 0xFFFF) {
-			throw new IllegalRegisterAccessException("Value "
-					+ Integer.toHexString(value) + " is too big for register "
-					+ reg);
-		}
-		REGISTERS reg1;
-		REGISTERS reg2;
-		if (reg == REGISTERS.BC) {
-			reg1 = REGISTERS.B;
-			reg2 = REGISTERS.C;
-		} else if (reg == REGISTERS.HL) {
-			reg1 = REGISTERS.H;
-			reg2 = REGISTERS.L;
-		} else if (reg == REGISTERS.DE) {
-			reg1 = REGISTERS.D;
-			reg2 = REGISTERS.E;
-		} else {
-			throw new UnsupportedOperationException("Register " + reg
-					+ " not a valid 16 bit register.");
-		}
-		set(reg1, ((value & 0xFF00) >>> 8));
-		set(reg2, (value & 0x00FF));
-
-	}
-
-	public int getWord(REGISTERS reg) {
-		REGISTERS reg1;
-		REGISTERS reg2;
-		if (reg == REGISTERS.BC) {
-			reg1 = REGISTERS.B;
-			reg2 = REGISTERS.C;
-		} else if (reg == REGISTERS.HL) {
-			reg1 = REGISTERS.H;
-			reg2 = REGISTERS.L;
-		} else if (reg == REGISTERS.DE) {
-			reg1 = REGISTERS.D;
-			reg2 = REGISTERS.E;
-		} else {
-			throw new UnsupportedOperationException("Register " + reg
-					+ " not a valid 16 bit register.");
-		}
-		return (registers[reg1.ordinal()] << 8 | registers[reg2.ordinal()]);
+		a = 0;
+		b = 0;
+		c = 0;
+		d = 0;
+		e = 0;
+		h = 0;
+		l = 0;
+	}
+
+	public int getA() {
+		return a;
+	}
+
+	public void setA(int value) {
+		a = value & 0xFF;
+	}
+
+	public int getB() {
+		return b;
+	}
+
+	public void setB(int value) {
+		b = value & 0xFF;
+	}
+
+	public int getC() {
+		return c;
+	}
+
+	public void setC(int value) {
+		c = value & 0xFF;
+	}
+
+	public int getD() {
+		return d;
+	}
+
+	public void setD(int value) {
+		d = value & 0xFF;
+	}
+
+	public int getE() {
+		return e;
+	}
+
+	public void setE(int value) {
+		e = value & 0xFF;
+	}
+
+	public int getH() {
+		return h;
+	}
+
+	public void setH(int value) {
+		h = value & 0xFF;
+	}
+
+	public int getL() {
+		return l;
+	}
+
+	public void setL(int value) {
+		l = value & 0xFF;
+	}
+
+	public int getBC() {
+		return b << 8 | c;
+	}
+
+	public void setBC(int value) {
+		b = (value >>> 8) & 0xFF;
+		c = value & 0xFF;
+	}
+
+	public int getDE() {
+		return d << 8 | e;
+	}
+
+	public void setDE(int value) {
+		d = (value >>> 8) & 0xFF;
+		e = value & 0xFF;
+	}
+
+	public int getHL() {
+		return h << 8 | l;
+	}
+
+	public void setHL(int value) {
+		h = (value >>> 8) & 0xFF;
+		l = value & 0xFF;
+	}
+
+	protected void copyFrom(Registers other) {
+		a = other.a;
+		b = other.b;
+		c = other.c;
+		d = other.d;
+		e = other.e;
+		h = other.h;
+		l = other.l;
 	}
 }
@@ -0,0 +1,48 @@
+package gbemu.cpu;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import gbemu.memory.Cart;
+
+/**
+ * The decoded instructions of the ROM banks of a cart. ROM never changes, so
+ * all CPUs running the same Cart share them. Entries hold no CPU state, the
+ * running CPU looks up the operation of an instruction by its opcode.
+ * 
+ * Entries are created without locking. CPUs that decode the same address at
+ * the same time create equal entries and one of them is kept.
+ */
+final class RomCode {
+
+	private static final Map<Cart, RomCode> shared = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private final DecodedInstruction[][] instructions;
+
+	private RomCode(int banks) {
+		instructions = new DecodedInstruction[banks][];
+	}
+
+	/**
+	 * Returns the code of cart, which lives as long as the cart.
+	 */
+	static RomCode of(Cart cart) {
+		return shared.computeIfAbsent(cart,
+				c -> new RomCode(c.getBankCount()));
+	}
+
+	DecodedInstruction[] instructions(int bank) {
+		DecodedInstruction[] table = instructions[bank];
+		return table != null ? table : createInstructions(bank);
+	}
+
+	private synchronized DecodedInstruction[] createInstructions(int bank) {
+		if (instructions[bank] == null) {
+			instructions[bank] = new DecodedInstruction[Cart.BANK_SIZE];
+		}
+		return instructions[bank];
+	}
+
+}
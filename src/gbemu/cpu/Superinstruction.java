@@ -0,0 +1,56 @@
+package gbemu.cpu;
+
+/**
+ * A sequence of instructions that is run by one fused operation. Sequences
+ * always end with a relative jump, whose offset is passed to the operation.
+ * The operation is named by the index of its pattern in the
+ * InstructionCache.
+ */
+class Superinstruction {
+
+	final DecodedInstruction[] body;
+	final int pattern;
+	// set if the pattern has a loop operation and the jump goes back to the
+	// start, so several iterations can run at once
+	final boolean loops;
+	// total length in bytes
+	final int length;
+	private int cycles;
+
+	Superinstruction(DecodedInstruction[] body, int pattern,
+			boolean hasLoop) {
+		this.body = body;
+		this.pattern = pattern;
+		int length = 0;
+		for (DecodedInstruction instruction : body) {
+			length += instruction.length;
+		}
+		this.length = length;
+		boolean jumpsToStart = (byte) operand() == -length;
+		loops = hasLoop && jumpsToStart;
+		cycles = -1;
+	}
+
+	int operand() {
+		return body[body.length - 1].operand;
+	}
+
+	/**
+	 * Returns the machine cycles of the whole sequence, or -1 until every
+	 * instruction in it has run once on its own.
+	 */
+	int cycles() {
+		if (cycles < 0) {
+			int sum = 0;
+			for (DecodedInstruction instruction : body) {
+				if (instruction.cycles < 0) {
+					return -1;
+				}
+				sum += instruction.cycles;
+			}
+			cycles = sum;
+		}
+		return cycles;
+	}
+
+}
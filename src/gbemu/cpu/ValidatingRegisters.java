@@ -0,0 +1,80 @@
+package gbemu.cpu;
+
+/**
+ * Debugging variant of the register file. Instead of wrapping, every write
+ * of a value that does not fit into the target register throws an
+ * IllegalRegisterAccessException.
+ */
+public class ValidatingRegisters extends Registers {
+
+	protected ValidatingRegisters() {
+	}
+
+	private void check(String register, int value, int max) {
+		if (value < 0 || value > max) {
+			throw new IllegalRegisterAccessException("Value "
+					+ Integer.toHexString(value) + " is too big for register "
+					+ register);
+		}
+	}
+
+	@Override
+	public void setA(int value) {
+		check("A", value, 0xFF);
+		super.setA(value);
+	}
+
+	@Override
+	public void setB(int value) {
+		check("B", value, 0xFF);
+		super.setB(value);
+	}
+
+	@Override
+	public void setC(int value) {
+		check("C", value, 0xFF);
+		super.setC(value);
+	}
+
+	@Override
+	public void setD(int value) {
+		check("D", value, 0xFF);
+		super.setD(value);
+	}
+
+	@Override
+	public void setE(int value) {
+		check("E", value, 0xFF);
+		super.setE(value);
+	}
+
+	@Override
+	public void setH(int value) {
+		check("H", value, 0xFF);
+		super.setH(value);
+	}
+
+	@Override
+	public void setL(int value) {
+		check("L", value, 0xFF);
+		super.setL(value);
+	}
+
+	@Override
+	public void setBC(int value) {
+		check("BC", value, 0xFFFF);
+		super.setBC(value);
+	}
+
+	@Override
+	public void setDE(int value) {
+		check("DE", value, 0xFFFF);
+		super.setDE(value);
+	}
+
+	@Override
+	public void setHL(int value) {
+		check("HL", value, 0xFFFF);
+		super.setHL(value);
+	}
+}
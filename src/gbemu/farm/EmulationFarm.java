@@ -0,0 +1,113 @@
+package gbemu.farm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import gbemu.Emulator;
+
+/**
+ * Runs many emulators on a small, fixed pool of carrier threads. Sessions
+ * are scheduled cooperatively: a carrier takes the next session from a FIFO
+ * queue, runs it for a slice of a few frames and puts it back at the end of
+ * the queue, so all sessions with frames left advance at the same rate.
+ * 
+ * A session only runs while it has frame budget, which its owner grants.
+ * Owners that do not keep up simply stop granting frames. The number of
+ * open sessions is limited, submitting more blocks until one is closed.
+ * 
+ * Emulators should be in turbo mode, a paced emulator would block its
+ * carrier.
+ */
+public class EmulationFarm {
+
+	private final BlockingQueue<Session> ready;
+	private final Semaphore capacity;
+	private final int sliceFrames;
+	private final Thread[] carriers;
+	private volatile boolean running;
+
+	/**
+	 * Creates a farm with the given number of carrier threads that runs at
+	 * most maxSessions sessions, each for sliceFrames frames at a time.
+	 */
+	public EmulationFarm(int threads, int maxSessions, int sliceFrames) {
+		ready = new LinkedBlockingQueue<>();
+		capacity = new Semaphore(maxSessions);
+		this.sliceFrames = sliceFrames;
+		running = true;
+		carriers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			carriers[i] = new Thread(this::work, "emulation-" + i);
+			carriers[i].setDaemon(true);
+			carriers[i].start();
+		}
+	}
+
+	/**
+	 * Opens a session for emulator, waiting while the farm is full.
+	 */
+	public Session submit(Emulator emulator) throws InterruptedException {
+		capacity.acquire();
+		return new Session(this, emulator);
+	}
+
+	/**
+	 * Opens a session for emulator, or returns null if the farm is full.
+	 */
+	public Session trySubmit(Emulator emulator) {
+		if (!capacity.tryAcquire()) {
+			return null;
+		}
+		return new Session(this, emulator);
+	}
+
+	// returns false if the farm was shut down
+	boolean schedule(Session session) {
+		synchronized (ready) {
+			if (!running) {
+				return false;
+			}
+			ready.add(session);
+			return true;
+		}
+	}
+
+	void release() {
+		capacity.release();
+	}
+
+	private void work() {
+		while (running) {
+			Session session;
+			try {
+				session = ready.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			session.runSlice(sliceFrames);
+		}
+	}
+
+	/**
+	 * Stops the carriers after their current slice. Sessions that still have
+	 * frame budget are not run any more and become idle.
+	 */
+	public void shutdown() {
+		List<Session> queued = new ArrayList<>();
+		synchronized (ready) {
+			running = false;
+			ready.drainTo(queued);
+		}
+		for (Thread carrier : carriers) {
+			carrier.interrupt();
+		}
+		// outside the lock, sessions call schedule() holding their own
+		for (Session session : queued) {
+			session.idle();
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+package gbemu.farm;
+
+import gbemu.Emulator;
+import gbemu.cpu.UnsupportedOpcodeException;
+
+/**
+ * An emulator running in an EmulationFarm. The emulator must not be used
+ * directly while the session is busy, see awaitIdle().
+ */
+public class Session {
+
+	private final EmulationFarm farm;
+	private final Emulator emulator;
+
+	// frames the session may still run
+	private int budget;
+	// set while the session is queued or running on a carrier
+	private boolean busy;
+	private boolean closed;
+	private long frames;
+	private Exception error;
+
+	Session(EmulationFarm farm, Emulator emulator) {
+		this.farm = farm;
+		this.emulator = emulator;
+	}
+
+	/**
+	 * Allows the session to run the given number of additional frames,
+	 * which must be positive.
+	 */
+	public synchronized void grant(int frames) {
+		if (frames <= 0) {
+			throw new IllegalArgumentException("frames must be positive: "
+					+ frames);
+		}
+		if (closed) {
+			throw new IllegalStateException("Session is closed");
+		}
+		budget += frames;
+		if (!busy && budget > 0) {
+			busy = true;
+			if (!farm.schedule(this)) {
+				idle();
+			}
+		}
+	}
+
+	void runSlice(int sliceFrames) {
+		int slice;
+		synchronized (this) {
+			if (closed) {
+				idle();
+				return;
+			}
+			slice = Math.min(sliceFrames, budget);
+		}
+
+		Exception error = null;
+		try {
+			emulator.runFrames(slice);
+		} catch (UnsupportedOpcodeException | RuntimeException e) {
+			error = e;
+		}
+
+		synchronized (this) {
+			budget -= slice;
+			frames += slice;
+			if (error != null) {
+				this.error = error;
+				close();
+			}
+			if (budget > 0 && !closed && farm.schedule(this)) {
+				return;
+			}
+			idle();
+		}
+	}
+
+	synchronized void idle() {
+		if (busy && closed) {
+			farm.release();
+		}
+		busy = false;
+		notifyAll();
+	}
+
+	/**
+	 * Waits until the session has used up its budget, was closed or the
+	 * farm was shut down.
+	 */
+	public synchronized void awaitIdle() throws InterruptedException {
+		while (busy) {
+			wait();
+		}
+	}
+
+	/**
+	 * Closes the session. Its place in the farm is freed at once if it is
+	 * idle, otherwise when the running slice has finished.
+	 */
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			if (!busy) {
+				farm.release();
+			}
+		}
+	}
+
+	public Emulator getEmulator() {
+		return emulator;
+	}
+
+	public synchronized long getFrames() {
+		return frames;
+	}
+
+	public synchronized int getBudget() {
+		return budget;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns the error that closed the session, or null. Besides
+	 * UnsupportedOpcodeException this can be any RuntimeException thrown by
+	 * the emulator.
+	 */
+	public synchronized Exception getError() {
+		return error;
+	}
+
+}
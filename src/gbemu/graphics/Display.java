@@ -6,7 +6,7 @@ import java.awt.image.BufferedImage;
 
 import javax.swing.JPanel;
 
-public class Display extends JPanel {
+public class Display extends JPanel implements Screen {
 
 	private BufferedImage fb = new BufferedImage(160, 144,
 			BufferedImage.TYPE_4BYTE_ABGR);
@@ -23,6 +23,12 @@ public class Display extends JPanel {
 		g.drawImage(fb, 0, 0, null);
 	}
 
+	@Override
+	public void show(int[] pixels) {
+		fb.setRGB(0, 0, GPU.WIDTH, GPU.HEIGHT, pixels, 0, GPU.WIDTH);
+		repaint();
+	}
+
 	public BufferedImage getFrameBuffer() {
 		return fb;
 	}
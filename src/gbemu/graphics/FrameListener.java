@@ -0,0 +1,11 @@
+package gbemu.graphics;
+
+public interface FrameListener {
+
+	/**
+	 * Called at the start of vblank, after a frame is complete. Returns
+	 * whether the next frame should be drawn.
+	 */
+	boolean frameCompleted();
+
+}
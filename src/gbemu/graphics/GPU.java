@@ -1,11 +1,22 @@
 package gbemu.graphics;
 
-import java.awt.Color;
+import java.util.Arrays;
+
+import gbemu.cpu.InterruptController;
+import gbemu.timing.Event;
+import gbemu.timing.Scheduler;
 
 public class GPU {
 
-	private int clock;
-	private Display d;
+	public static final int WIDTH = 160;
+	public static final int HEIGHT = 144;
+
+	// ARGB pixels of the last drawn frame
+	private int[] frameBuffer;
+	private Screen screen;
+	private Scheduler scheduler;
+	private Event modeChange;
+	private InterruptController interrupts;
 
 	// Registers
 	private int line;
@@ -22,7 +33,9 @@ public class GPU {
 
 	private short[] colors;
 
-	private short[] vram;
+	// 0x8000-0x9FFF, at vramOffset in vram
+	private byte[] vram;
+	private int vramOffset;
 
 	private enum MODES {
 		SCANLINE1, SCANLINE2, HBLANK, VBLANK,
@@ -30,67 +43,93 @@ public class GPU {
 
 	private MODES mode;
 
-	public GPU(Display d) {
-		this.d = d;
+	// only every frameSkip-th frame is drawn
+	private int frameSkip;
+	private int frame;
+	private long frameCount;
+	private boolean render;
+	// set while the frame listener wants frames to be dropped
+	private boolean drop;
+	private FrameListener frameListener;
+
+	public GPU(Scheduler scheduler, InterruptController interrupts) {
+		this.scheduler = scheduler;
+		this.interrupts = interrupts;
 		this.mode = MODES.SCANLINE1;
-		vram = new short[0x2000];
+		frameSkip = 1;
+		render = true;
+		vram = new byte[0x2000];
+		frameBuffer = new int[WIDTH * HEIGHT];
+		Arrays.fill(frameBuffer, 0xFFFFFFFF);
 		colors = new short[4];
 		colors[0] = 255;
 		colors[1] = 192;
 		colors[2] = 96;
 		colors[3] = 0;
 
+		modeChange = new Event(this::changeMode);
+		scheduler.schedule(modeChange, scheduler.now() + modeLength());
 	}
 
-	public void tick(int time) {
-		clock += time;
-
+	private void changeMode() {
 		switch (mode) {
 		case SCANLINE1:
-			if (clock >= 80) {
-				mode = MODES.SCANLINE2;
-				clock = 0;
-			}
+			mode = MODES.SCANLINE2;
 			break;
 		case SCANLINE2:
-			if (clock >= 172) {
-				mode = MODES.HBLANK;
-				clock = 0;
+			mode = MODES.HBLANK;
+			if (render) {
+				drawLine();
 			}
-			drawLine();
 			break;
 		case HBLANK:
-			if (clock >= 204) {
-				clock = 0;
-				line++;
-				if (line == 143) {
-					mode = MODES.VBLANK;
+			line++;
+			if (line == 143) {
+				mode = MODES.VBLANK;
+				frameCount++;
+				if (render) {
 					pushImage();
-
-				} else {
-					mode = MODES.SCANLINE1;
 				}
+				if (frameListener != null) {
+					drop = !frameListener.frameCompleted();
+				}
+				interrupts.request(InterruptController.VBLANK);
+
+			} else {
+				mode = MODES.SCANLINE1;
 			}
 			break;
 		case VBLANK:
-			if (clock >= 456) {
-				clock = 0;
-				line++;
-				if (line > 153) {
-					line = 0;
-					mode = MODES.SCANLINE1;
-				}
+			line++;
+			if (line > 153) {
+				line = 0;
+				mode = MODES.SCANLINE1;
+				frame++;
+				render = frame % frameSkip == 0 && !drop;
 			}
 			break;
 		}
+		scheduler.schedule(modeChange, modeChange.getTime() + modeLength());
+	}
 
+	private int modeLength() {
+		switch (mode) {
+		case SCANLINE1:
+			return 80;
+		case SCANLINE2:
+			return 172;
+		case HBLANK:
+			return 204;
+		default:
+			return 456;
+		}
 	}
 
 	private void drawLine() {
 		// base address of current map in vram
-		int mapBaseAddress = (tileMap == 0) ? 0x1800 : 0x1c00;
+		int mapBaseAddress = vramOffset + ((tileMap == 0) ? 0x1800 : 0x1c00);
 		// base address of current tile set in vram
-		int tileBaseAddress = (tileSet == 0) ? 0x0800 : 0x0;
+		int tileBaseAddress = vramOffset + ((tileSet == 0) ? 0x0800 : 0x0);
 
 		// number of line in which the tile is located in the map
 		int verticalTileNumber = (scrollY + line) / 8;
@@ -104,9 +143,9 @@ public class GPU {
 		// tile number. if signed value, add 256 to get an address
 		int startTileNumber = 0;
 		if (tileSet == 0) {
-			startTileNumber = ((byte) vram[tileAddress]) + 128;
+			startTileNumber = vram[tileAddress] + 128;
 		} else {
-			startTileNumber = vram[tileAddress];
+			startTileNumber = vram[tileAddress] & 0xFF;
 		}
 
 		// x,y value in current tile
@@ -119,11 +158,9 @@ public class GPU {
 			int line2 = vram[tileBaseAddress + startTileNumber * 16 + y * 2 + 1];
 
 			int pixel = (((line2 & (0x80 >>> x)) >>> (7 - x - 1)) | ((line1 & (0x80 >>> x)) >>> (7 - x)));
-			d.getFrameBuffer().setRGB(
-					i,
-					line,
-					new Color(colors[pixel], colors[pixel], colors[pixel], 255)
-							.getRGB());
+			int color = colors[pixel];
+			frameBuffer[line * WIDTH + i] = 0xFF000000 | color << 16
+					| color << 8 | color;
 
 			x++;
 			if (x == 8) {
@@ -133,9 +170,9 @@ public class GPU {
 				tileAddress = verticalTileNumber * 32 + horizontalTileNumber
 						+ mapBaseAddress;
 				if (tileSet == 0) {
-					startTileNumber = ((byte) vram[tileAddress]) + 128;
+					startTileNumber = vram[tileAddress] + 128;
 				} else {
-					startTileNumber = vram[tileAddress];
+					startTileNumber = vram[tileAddress] & 0xFF;
 				}
 
 			}
@@ -145,7 +182,58 @@ public class GPU {
 	}
 
 	private void pushImage() {
-		d.repaint();
+		if (screen != null) {
+			screen.show(frameBuffer);
+		}
+	}
+
+	/**
+	 * Sets the screen that is shown every drawn frame, null for none.
+	 */
+	public void setScreen(Screen screen) {
+		this.screen = screen;
+	}
+
+	/**
+	 * Returns the pixels of the current frame as ARGB values, line by line.
+	 */
+	public int[] getFrameBuffer() {
+		return frameBuffer;
+	}
+
+	/**
+	 * Returns the number of frames completed since power on, drawn or not.
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Draws only one of every frames frames, starting with the next one. The
+	 * other frames are emulated without drawing any lines or updating the
+	 * display. 1 draws every frame.
+	 */
+	public void setFrameSkip(int frames) {
+		if (frames < 1) {
+			throw new IllegalArgumentException("Invalid frame skip " + frames);
+		}
+		frameSkip = frames;
+		frame = 0;
+	}
+
+	public void setFrameListener(FrameListener listener) {
+		frameListener = listener;
+		drop = false;
+	}
+
+	/**
+	 * Moves video RAM to memory, where offset is the index of 0x8000. Writing
+	 * to that part of memory has the same effect as writeByte.
+	 */
+	public void setVideoRAM(byte[] memory, int offset) {
+		System.arraycopy(vram, vramOffset, memory, offset, 0x2000);
+		vram = memory;
+		vramOffset = offset;
 	}
 
 	public int readByte(int addr) {
@@ -184,7 +272,7 @@ public class GPU {
 				return 0;
 			}
 		} else {
-			return vram[addr - 0x8000];
+			return vram[vramOffset + addr - 0x8000] & 0xFF;
 		}
 	}
 
@@ -225,7 +313,7 @@ public class GPU {
 				}
 			}
 		} else {
-			vram[addr - 0x8000] = (short) value;
+			vram[vramOffset + addr - 0x8000] = (byte) value;
 		}
 	}
 }
@@ -0,0 +1,11 @@
+package gbemu.graphics;
+
+public interface Screen {
+
+	/**
+	 * Shows a frame of GPU.WIDTH * GPU.HEIGHT ARGB pixels. The array is
+	 * reused for the next frame, so it has to be copied if it is kept.
+	 */
+	void show(int[] pixels);
+
+}
@@ -0,0 +1,146 @@
+package gbemu.memory;
+
+/**
+ * The memory bank controller of a cart. Writes to the ROM area go to its
+ * registers, which select the ROM banks mapped to 0x0000-0x3FFF and
+ * 0x4000-0x7FFF. Bank numbers can be larger than the ROM, Memory wraps
+ * them around.
+ */
+abstract class BankController {
+
+	protected int lowBank;
+	protected int highBank = 1;
+	protected int ramBank;
+	protected boolean ramEnabled;
+
+	/**
+	 * Returns the controller for a cart type from the cart header. Carts
+	 * with unsupported controllers are treated like carts without one.
+	 */
+	static BankController create(int type) {
+		switch (type) {
+		case 0x01:
+		case 0x02:
+		case 0x03:
+			return new MBC1();
+		case 0x0F:
+		case 0x10:
+		case 0x11:
+		case 0x12:
+		case 0x13:
+			return new MBC3();
+		case 0x19:
+		case 0x1A:
+		case 0x1B:
+		case 0x1C:
+		case 0x1D:
+		case 0x1E:
+			return new MBC5();
+		default:
+			return new None();
+		}
+	}
+
+	/**
+	 * Handles a write to 0x0000-0x7FFF. Returns false if there is no
+	 * register at addr.
+	 */
+	abstract boolean writeByte(int addr, int value);
+
+	int getLowBank() {
+		return lowBank;
+	}
+
+	int getHighBank() {
+		return highBank;
+	}
+
+	int getRamBank() {
+		return ramBank;
+	}
+
+	boolean isRamEnabled() {
+		return ramEnabled;
+	}
+
+	private static class None extends BankController {
+
+		@Override
+		boolean writeByte(int addr, int value) {
+			// ROM only games like Tetris still select bank 1 here
+			return addr == 0x2000;
+		}
+	}
+
+	private static class MBC1 extends BankController {
+
+		private int lower = 1;
+		private int upper;
+		private boolean ramBanking;
+
+		@Override
+		boolean writeByte(int addr, int value) {
+			if (addr < 0x2000) {
+				ramEnabled = (value & 0x0F) == 0x0A;
+			} else if (addr < 0x4000) {
+				lower = value & 0x1F;
+				if (lower == 0) {
+					lower = 1;
+				}
+			} else if (addr < 0x6000) {
+				upper = value & 0x03;
+			} else {
+				ramBanking = (value & 0x01) != 0;
+			}
+			// in RAM banking mode the upper bits also select the bank at
+			// 0x0000 and the RAM bank
+			highBank = upper << 5 | lower;
+			lowBank = ramBanking ? upper << 5 : 0;
+			ramBank = ramBanking ? upper : 0;
+			return true;
+		}
+	}
+
+	private static class MBC3 extends BankController {
+
+		@Override
+		boolean writeByte(int addr, int value) {
+			if (addr < 0x2000) {
+				ramEnabled = (value & 0x0F) == 0x0A;
+			} else if (addr < 0x4000) {
+				highBank = value & 0x7F;
+				if (highBank == 0) {
+					highBank = 1;
+				}
+			} else if (addr < 0x6000) {
+				// 0x08-0x0C select the clock registers
+				ramBank = value & 0x0F;
+			}
+			// 0x6000-0x7FFF latches the clock, which is not emulated
+			return true;
+		}
+
+		@Override
+		boolean isRamEnabled() {
+			return ramEnabled && ramBank < 0x08;
+		}
+	}
+
+	private static class MBC5 extends BankController {
+
+		@Override
+		boolean writeByte(int addr, int value) {
+			if (addr < 0x2000) {
+				ramEnabled = (value & 0x0F) == 0x0A;
+			} else if (addr < 0x3000) {
+				highBank = highBank & 0x100 | value;
+			} else if (addr < 0x4000) {
+				highBank = (value & 0x01) << 8 | highBank & 0xFF;
+			} else if (addr < 0x6000) {
+				ramBank = value & 0x0F;
+			}
+			return true;
+		}
+	}
+
+}
@@ -1,31 +1,110 @@
 package gbemu.memory;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class Cart {
-	private short[] content;
+	public static final int BANK_SIZE = 0x4000;
 
+	private ByteBuffer content;
+
+	/**
+	 * Loads a ROM file. The file is mapped read only instead of being read
+	 * into the heap, unless it is not made of whole banks.
+	 */
 	public Cart(String fileName) throws IOException {
-		File cart = new File(fileName);
-		FileInputStream s = new FileInputStream(cart);
-		content = new short[(int) cart.length()];
-		int pos = 0;
-		int data;
-		while ((data = s.read()) != -1) {
-			content[pos++] = (short) (data & 0xFF);
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (isMappable(size)) {
+				content = channel.map(MapMode.READ_ONLY, 0, size);
+			} else {
+				content = pad(Files.readAllBytes(Paths.get(fileName)));
+			}
+		}
+	}
+
+	public Cart(byte[] rom) {
+		content = pad(rom);
+	}
+
+	// files made of whole banks can be mapped without padding
+	static boolean isMappable(long size) {
+		return size >= 2 * BANK_SIZE && size % BANK_SIZE == 0
+				&& size <= Integer.MAX_VALUE;
+	}
+
+	// padded to whole banks, at least the two that are mapped at once
+	private static ByteBuffer pad(byte[] rom) {
+		int banks = Math.max(2, (rom.length + BANK_SIZE - 1) / BANK_SIZE);
+		return ByteBuffer.wrap(Arrays.copyOf(rom, banks * BANK_SIZE));
+	}
+
+	/**
+	 * Returns the ROM image, which is either backed by an array or mapped
+	 * from the ROM file. It is mapped into memory as it is, so it must not
+	 * be modified.
+	 */
+	public ByteBuffer getROM() {
+		return content;
+	}
+
+	public int getBankCount() {
+		return content.capacity() / BANK_SIZE;
+	}
+
+	/**
+	 * Returns the cart type from the header, which names the memory bank
+	 * controller.
+	 */
+	public int getType() {
+		return content.get(0x147) & 0xFF;
+	}
+
+	/**
+	 * Returns the size of the RAM on the cart from the header.
+	 */
+	public int getRAMSize() {
+		switch (content.get(0x149)) {
+		case 0x01:
+			return 0x800;
+		case 0x02:
+			return 0x2000;
+		case 0x03:
+			return 0x8000;
+		case 0x04:
+			return 0x20000;
+		case 0x05:
+			return 0x10000;
+		default:
+			return 0;
 		}
-		s.close();
 	}
 
-	public short[] getBank(int index) {
-		short[] result = new short[0x4000];
-		if (index == 0) {
-			System.arraycopy(content, 0x0, result, 0x0, 0x3FFF);
-		} else if (index == 1) {
-			System.arraycopy(content, 0x4000, result, 0x0, 0x3FFF);
+	/**
+	 * Returns true if the cart RAM is battery backed, so it has to be saved.
+	 */
+	public boolean hasBattery() {
+		switch (getType()) {
+		case 0x03:
+		case 0x06:
+		case 0x09:
+		case 0x0D:
+		case 0x0F:
+		case 0x10:
+		case 0x13:
+		case 0x1B:
+		case 0x1E:
+		case 0xFF:
+			return true;
+		default:
+			return false;
 		}
-		return result;
 	}
 }
@@ -0,0 +1,147 @@
+package gbemu.memory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The RAM on a cart, which keeps its contents across resets. If it is
+ * battery backed it is also kept in a save file. Writes only mark their
+ * 256 byte page as dirty, SaveFlusher writes the dirty pages to the mapped
+ * save file in the background. Only close() saves the last changes for
+ * sure.
+ */
+public class CartRAM {
+	public static final int BANK_SIZE = 0x2000;
+	static final int PAGE_SIZE = 0x100;
+
+	private final byte[] data;
+	private final AtomicIntegerArray dirty;
+	// null if the RAM is not saved. The channel holds the lock on the file.
+	private final FileChannel channel;
+	private final MappedByteBuffer file;
+
+	private CartRAM(int size, FileChannel channel, MappedByteBuffer file) {
+		data = new byte[size];
+		dirty = new AtomicIntegerArray((size + PAGE_SIZE - 1) / PAGE_SIZE);
+		this.channel = channel;
+		this.file = file;
+		if (file != null) {
+			for (int i = 0; i < size; i++) {
+				data[i] = file.get(i);
+			}
+		}
+	}
+
+	/**
+	 * Returns the RAM of a cart, or null if it has none.
+	 */
+	public static CartRAM create(Cart cart) {
+		int size = cart.getRAMSize();
+		return size > 0 ? new CartRAM(size, null, null) : null;
+	}
+
+	/**
+	 * Returns the RAM of a cart, or null if it has none. Battery backed RAM
+	 * is loaded from saveFile, which is created if it does not exist yet,
+	 * and saved there until close() is called. The file is locked meanwhile.
+	 * If another emulator holds the lock, the RAM is not saved.
+	 */
+	public static CartRAM create(Cart cart, Path saveFile)
+			throws IOException {
+		int size = cart.getRAMSize();
+		if (size == 0 || !cart.hasBattery()) {
+			return create(cart);
+		}
+		FileChannel channel = FileChannel.open(saveFile,
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (tryLock(channel) == null) {
+				channel.close();
+				return create(cart);
+			}
+			// the mapping grows files that are too short
+			CartRAM ram = new CartRAM(size, channel,
+					channel.map(MapMode.READ_WRITE, 0, size));
+			SaveFlusher.register(ram);
+			return ram;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static FileLock tryLock(FileChannel channel) throws IOException {
+		try {
+			return channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// held by another emulator in this VM
+			return null;
+		}
+	}
+
+	byte[] getData() {
+		return data;
+	}
+
+	public int getSize() {
+		return data.length;
+	}
+
+	public boolean isSaved() {
+		return file != null;
+	}
+
+	// called by the emulation thread after each write to index
+	void written(int index) {
+		dirty.lazySet(index / PAGE_SIZE, 1);
+	}
+
+	/**
+	 * Writes the pages changed since the last flush to the save file. A
+	 * page written again while it is copied stays dirty for the next flush.
+	 */
+	public synchronized void flush() {
+		if (file == null) {
+			return;
+		}
+		boolean changed = false;
+		for (int page = 0; page < dirty.length(); page++) {
+			if (dirty.get(page) == 0 || dirty.getAndSet(page, 0) == 0) {
+				continue;
+			}
+			int end = Math.min(data.length, (page + 1) * PAGE_SIZE);
+			for (int i = page * PAGE_SIZE; i < end; i++) {
+				file.put(i, data[i]);
+			}
+			changed = true;
+		}
+		if (changed) {
+			file.force();
+		}
+	}
+
+	/**
+	 * Saves the RAM, stops saving it in the background and releases the
+	 * save file.
+	 */
+	public void close() {
+		if (file != null) {
+			SaveFlusher.unregister(this);
+			flush();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package gbemu.memory;
 
-public class IllegalMemoryAccessException extends Exception {
+public class IllegalMemoryAccessException extends RuntimeException {
 
 	String message;
 
@@ -1,137 +1,532 @@
 package gbemu.memory;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import gbemu.cpu.InterruptController;
 import gbemu.graphics.GPU;
+import gbemu.timing.Event;
+import gbemu.timing.Scheduler;
+import gbemu.timing.Timer;
 
 public class Memory {
 
-	private short[] bios = { 0x31, 0xFE, 0xFF, 0xAF, 0x21, 0xFF, 0x9F, 0x32,
-			0xCB, 0x7C, 0x20, 0xFB, 0x21, 0x26, 0xFF, 0x0E, 0x11, 0x3E, 0x80,
-			0x32, 0xE2, 0x0C, 0x3E, 0xF3, 0xE2, 0x32, 0x3E, 0x77, 0x77, 0x3E,
-			0xFC, 0xE0, 0x47, 0x11, 0x04, 0x01, 0x21, 0x10, 0x80, 0x1A, 0xCD,
-			0x95, 0x00, 0xCD, 0x96, 0x00, 0x13, 0x7B, 0xFE, 0x34, 0x20, 0xF3,
-			0x11, 0xD8, 0x00, 0x06, 0x08, 0x1A, 0x13, 0x22, 0x23, 0x05, 0x20,
-			0xF9, 0x3E, 0x19, 0xEA, 0x10, 0x99, 0x21, 0x2F, 0x99, 0x0E, 0x0C,
-			0x3D, 0x28, 0x08, 0x32, 0x0D, 0x20, 0xF9, 0x2E, 0x0F, 0x18, 0xF3,
-			0x67, 0x3E, 0x64, 0x57, 0xE0, 0x42, 0x3E, 0x91, 0xE0, 0x40, 0x04,
-			0x1E, 0x02, 0x0E, 0x0C, 0xF0, 0x44, 0xFE, 0x90, 0x20, 0xFA, 0x0D,
-			0x20, 0xF7, 0x1D, 0x20, 0xF2, 0x0E, 0x13, 0x24, 0x7C, 0x1E, 0x83,
-			0xFE, 0x62, 0x28, 0x06, 0x1E, 0xC1, 0xFE, 0x64, 0x20, 0x06, 0x7B,
-			0xE2, 0x0C, 0x3E, 0x87, 0xE2, 0xF0, 0x42, 0x90, 0xE0, 0x42, 0x15,
-			0x20, 0xD2, 0x05, 0x20, 0x4F, 0x16, 0x20, 0x18, 0xCB, 0x4F, 0x06,
-			0x04, 0xC5, 0xCB, 0x11, 0x17, 0xC1, 0xCB, 0x11, 0x17, 0x05, 0x20,
-			0xF5, 0x22, 0x23, 0x22, 0x23, 0xC9, 0xCE, 0xED, 0x66, 0x66, 0xCC,
-			0x0D, 0x00, 0x0B, 0x03, 0x73, 0x00, 0x83, 0x00, 0x0C, 0x00, 0x0D,
-			0x00, 0x08, 0x11, 0x1F, 0x88, 0x89, 0x00, 0x0E, 0xDC, 0xCC, 0x6E,
-			0xE6, 0xDD, 0xDD, 0xD9, 0x99, 0xBB, 0xBB, 0x67, 0x63, 0x6E, 0x0E,
-			0xEC, 0xCC, 0xDD, 0xDC, 0x99, 0x9F, 0xBB, 0xB9, 0x33, 0x3E, 0x3c,
-			0x42, 0xB9, 0xA5, 0xB9, 0xA5, 0x42, 0x4C, 0x21, 0x04, 0x01, 0x11,
-			0xA8, 0x00, 0x1A, 0x13, 0xBE, 0x20, 0xFE, 0x23, 0x7D, 0xFE, 0x34,
-			0x20, 0xF5, 0x06, 0x19, 0x78, 0x86, 0x23, 0x05, 0x20, 0xFB, 0x86,
-			0x20, 0xFE, 0x3E, 0x01, 0xE0, 0x50 };
-	private short[] cart0 = new short[0x4000];
-	private short[] cart1 = new short[0x4000];
-	private short[] extRAM = new short[0x2000];
-	private short[] RAM = new short[0x2000];
-	private short[] graphics = new short[0xA0];
-	private short[] io = new short[0x80];
-	private short[] zeroRAM = new short[0x80];
+	private static final short[] BIOS = { 0x31, 0xFE, 0xFF, 0xAF, 0x21, 0xFF,
+			0x9F, 0x32, 0xCB, 0x7C, 0x20, 0xFB, 0x21, 0x26, 0xFF, 0x0E, 0x11,
+			0x3E, 0x80, 0x32, 0xE2, 0x0C, 0x3E, 0xF3, 0xE2, 0x32, 0x3E, 0x77,
+			0x77, 0x3E, 0xFC, 0xE0, 0x47, 0x11, 0x04, 0x01, 0x21, 0x10, 0x80,
+			0x1A, 0xCD, 0x95, 0x00, 0xCD, 0x96, 0x00, 0x13, 0x7B, 0xFE, 0x34,
+			0x20, 0xF3, 0x11, 0xD8, 0x00, 0x06, 0x08, 0x1A, 0x13, 0x22, 0x23,
+			0x05, 0x20, 0xF9, 0x3E, 0x19, 0xEA, 0x10, 0x99, 0x21, 0x2F, 0x99,
+			0x0E, 0x0C, 0x3D, 0x28, 0x08, 0x32, 0x0D, 0x20, 0xF9, 0x2E, 0x0F,
+			0x18, 0xF3, 0x67, 0x3E, 0x64, 0x57, 0xE0, 0x42, 0x3E, 0x91, 0xE0,
+			0x40, 0x04, 0x1E, 0x02, 0x0E, 0x0C, 0xF0, 0x44, 0xFE, 0x90, 0x20,
+			0xFA, 0x0D, 0x20, 0xF7, 0x1D, 0x20, 0xF2, 0x0E, 0x13, 0x24, 0x7C,
+			0x1E, 0x83, 0xFE, 0x62, 0x28, 0x06, 0x1E, 0xC1, 0xFE, 0x64, 0x20,
+			0x06, 0x7B, 0xE2, 0x0C, 0x3E, 0x87, 0xE2, 0xF0, 0x42, 0x90, 0xE0,
+			0x42, 0x15, 0x20, 0xD2, 0x05, 0x20, 0x4F, 0x16, 0x20, 0x18, 0xCB,
+			0x4F, 0x06, 0x04, 0xC5, 0xCB, 0x11, 0x17, 0xC1, 0xCB, 0x11, 0x17,
+			0x05, 0x20, 0xF5, 0x22, 0x23, 0x22, 0x23, 0xC9, 0xCE, 0xED, 0x66,
+			0x66, 0xCC, 0x0D, 0x00, 0x0B, 0x03, 0x73, 0x00, 0x83, 0x00, 0x0C,
+			0x00, 0x0D, 0x00, 0x08, 0x11, 0x1F, 0x88, 0x89, 0x00, 0x0E, 0xDC,
+			0xCC, 0x6E, 0xE6, 0xDD, 0xDD, 0xD9, 0x99, 0xBB, 0xBB, 0x67, 0x63,
+			0x6E, 0x0E, 0xEC, 0xCC, 0xDD, 0xDC, 0x99, 0x9F, 0xBB, 0xB9, 0x33,
+			0x3E, 0x3c, 0x42, 0xB9, 0xA5, 0xB9, 0xA5, 0x42, 0x4C, 0x21, 0x04,
+			0x01, 0x11, 0xA8, 0x00, 0x1A, 0x13, 0xBE, 0x20, 0xFE, 0x23, 0x7D,
+			0xFE, 0x34, 0x20, 0xF5, 0x06, 0x19, 0x78, 0x86, 0x23, 0x05, 0x20,
+			0xFB, 0x86, 0x20, 0xFE, 0x3E, 0x01, 0xE0, 0x50 };
+
+	// All RAM of an instance, including the GPU's video RAM and the boot ROM
+	// that can be written while it is mapped, is stored in one block with
+	// the regions at these offsets.
+	private static final int VIDEO_RAM = 0x0000;
+	private static final int EXTERNAL_RAM = 0x2000;
+	private static final int WORK_RAM = 0x4000;
+	private static final int OAM = 0x6000;
+	private static final int IO = 0x60A0;
+	private static final int HIGH_RAM = 0x6120;
+	private static final int BOOT_ROM = 0x61A0;
+	private static final int SIZE = 0x62A0;
+	// inserted until loadCart(), it is never written so all share it
+	private static final Cart NO_CART = new Cart(new byte[0]);
+
+	private byte[] ram = new byte[SIZE];
+	// ROM pages are mapped to romArray if the ROM is on the heap, otherwise
+	// they are read from rom by CartHandler
+	private Cart cart = NO_CART;
+	private ByteBuffer rom = cart.getROM();
+	private byte[] romArray = rom.array();
+	private int romBanks = 2;
+	private BankController bankController = BankController.create(0);
+	// carts without RAM of their own use the external RAM in the block
+	private CartRAM cartRAM;
+	private MemoryHandler cartRAMHandler = new CartRAMHandler();
+	// bank mapped at 0xA000, or -1 while cart RAM is disabled
+	private int ramBank;
+
+	public static final int FAULT_NONE = 0;
+	public static final int FAULT_UNMAPPED = 1;
+	public static final int FAULT_READ_ONLY = 2;
+	public static final int FAULT_VALUE = 3;
+
+	// One entry per 256 byte page. A page is either backed directly by an
+	// array, where addr maps to index offset + addr, or has a handler.
+	private static final int PAGES = 0x100;
+	private byte[][] readPages = new byte[PAGES][];
+	private int[] readOffsets = new int[PAGES];
+	private byte[][] writePages = new byte[PAGES][];
+	private int[] writeOffsets = new int[PAGES];
+	private MemoryHandler[] handlers = new MemoryHandler[PAGES];
 
 	private boolean inBios;
+	// banks mapped at 0x0000 and 0x4000
+	private int lowRomBank;
+	private int romBank;
 	private GPU gpu;
+	private Scheduler scheduler;
+	private Timer timer;
+	private InterruptController interrupts;
+
+	// OAM DMA started by writing the source page to 0xFF46
+	private Event dmaDone;
+	private int dmaSource;
 
-	public Memory(GPU gpu) {
+	// Invalid accesses never throw unless strict is set. The first one is
+	// latched here instead, until the CPU picks it up with clearFault().
+	private boolean strict;
+	private int fault;
+	private int faultAddress;
+	private int faultValue;
+
+	public Memory(GPU gpu, Scheduler scheduler,
+			InterruptController interrupts) {
 
 		this.gpu = gpu;
+		this.scheduler = scheduler;
+		this.interrupts = interrupts;
+		timer = new Timer(scheduler,
+				() -> interrupts.request(InterruptController.TIMER));
+		dmaDone = new Event(this::copyOAM);
 		inBios = true;
+		romBank = 1;
+
+		for (int i = 0; i < BIOS.length; i++) {
+			ram[BOOT_ROM + i] = (byte) BIOS[i];
+		}
+		gpu.setVideoRAM(ram, VIDEO_RAM);
+
+		MemoryHandler cart = new CartHandler();
+		for (int page = 0x00; page < 0x80; page++) {
+			handlers[page] = cart;
+		}
+		mapCart();
+		mapRAM(0x80, 0xA0, VIDEO_RAM);
+		mapRAM(0xA0, 0xC0, EXTERNAL_RAM);
+		mapCartRAM();
+		mapRAM(0xC0, 0xE0, WORK_RAM);
+		mapRAM(0xE0, 0xFE, WORK_RAM);
+		handlers[0xFE] = new OAMHandler();
+		handlers[0xFF] = new IOHandler();
+	}
 
+	private void mapCart() {
+		mapROM(0x00, lowRomBank);
+		mapROM(0x40, romBank);
+		mapBios();
+	}
+
+	// switching banks only changes the offsets of the 64 pages of a bank
+	private void mapROM(int from, int bank) {
+		int start = (from << 8) - bank * Cart.BANK_SIZE;
+		for (int page = from; page < from + 0x40; page++) {
+			map(readPages, readOffsets, page, romArray, start);
+		}
+	}
+
+	private void mapBios() {
+		if (inBios) {
+			map(readPages, readOffsets, 0x00, ram, -BOOT_ROM);
+			map(writePages, writeOffsets, 0x00, ram, -BOOT_ROM);
+		} else {
+			writePages[0x00] = null;
+		}
+	}
+
+	// Cart RAM is read directly. If it is saved, writes go through
+	// CartRAMHandler to mark the page dirty. Disabled RAM is not mapped.
+	private void mapCartRAM() {
+		if (cartRAM == null) {
+			return;
+		}
+		byte[] data = cartRAM.getData();
+		for (int page = 0xA0; page < 0xC0; page++) {
+			int index = ramBank * CartRAM.BANK_SIZE + (page - 0xA0 << 8);
+			byte[] array = ramBank >= 0 && index < data.length ? data : null;
+			int start = (page << 8) - index;
+			map(readPages, readOffsets, page, array, start);
+			map(writePages, writeOffsets, page,
+					cartRAM.isSaved() ? null : array, start);
+			handlers[page] = cartRAMHandler;
+		}
+	}
+
+	// maps pages from to to the region of ram at offset
+	private void mapRAM(int from, int to, int offset) {
+		int start = (from << 8) - offset;
+		for (int page = from; page < to; page++) {
+			map(readPages, readOffsets, page, ram, start);
+			map(writePages, writeOffsets, page, ram, start);
+		}
+	}
+
+	// maps page to array, where start is the address of array[0]. With a
+	// null array, the page's handler still uses the offset.
+	private static void map(byte[][] pages, int[] offsets, int page,
+			byte[] array, int start) {
+		pages[page] = array;
+		offsets[page] = -start;
 	}
 
 	public void leaveBios() {
 		inBios = false;
+		mapROM(0x00, lowRomBank);
+		mapBios();
 	}
 
-	public int readByte(int addr) throws IllegalMemoryAccessException {
-
-		if (addr <= 0x00FF && inBios) {
-
-			return bios[addr];
-		} else if (addr <= 0x3FFF) {
-			return cart0[addr];
-		} else if (addr >= 0x4000 && addr <= 0x7FFF) {
-			return cart1[addr - 0x4000];
-		} else if (addr >= 0x8000 && addr <= 0x9FFF) {
-			return gpu.readByte(addr);
-		} else if (addr >= 0xA000 && addr <= 0xBFFF) {
-			return extRAM[addr - 0xA000];
-		} else if (addr >= 0xC000 && addr <= 0xDFFF) {
-			return RAM[addr - 0xC000];
-		} else if (addr >= 0xE000 && addr <= 0xFDFF) {
-			return RAM[addr - 0xE000];
-		} else if (addr >= 0xFE00 && addr <= 0xFE9F) {
-			return graphics[addr - 0xFE00];
-		} else if (addr >= 0xFF00 && addr <= 0xFF7F) {
-			if (addr >= 0xFF40) {
-				return gpu.readByte(addr);
+	public boolean isInBios() {
+		return inBios;
+	}
+
+	/**
+	 * Returns the ROM bank mapped at 0x4000-0x7FFF.
+	 */
+	public int getRomBank() {
+		return romBank;
+	}
+
+	/**
+	 * Returns the ROM bank mapped at 0x0000-0x3FFF, which is 0 except in the
+	 * RAM banking mode of MBC1.
+	 */
+	public int getLowRomBank() {
+		return lowRomBank;
+	}
+
+	/**
+	 * Returns the inserted cart, which is an empty one until loadCart() is
+	 * called.
+	 */
+	public Cart getCart() {
+		return cart;
+	}
+
+	public void setStrict(boolean strict) {
+		this.strict = strict;
+	}
+
+	public boolean hasFault() {
+		return fault != FAULT_NONE;
+	}
+
+	public int getFault() {
+		return fault;
+	}
+
+	public int getFaultAddress() {
+		return faultAddress;
+	}
+
+	public String getFaultMessage() {
+		return message(fault, faultAddress, faultValue);
+	}
+
+	public void clearFault() {
+		fault = FAULT_NONE;
+	}
+
+	private void fault(int code, int addr, int value) {
+		if (strict) {
+			throw new IllegalMemoryAccessException(message(code, addr, value));
+		}
+		if (fault == FAULT_NONE) {
+			fault = code;
+			faultAddress = addr;
+			faultValue = value;
+		}
+	}
+
+	private String message(int code, int addr, int value) {
+		switch (code) {
+		case FAULT_UNMAPPED:
+			return "Memory address " + Integer.toHexString(addr)
+					+ " is not accessible.";
+		case FAULT_READ_ONLY:
+			return "Address " + Integer.toHexString(addr)
+					+ " is ROM memory. It can not be written.";
+		case FAULT_VALUE:
+			return "Value " + value + " is too big to be written to address "
+					+ Integer.toHexString(addr);
+		default:
+			return null;
+		}
+	}
+
+	public int readByte(int addr) {
+		if (addr >>> 16 != 0) {
+			fault(FAULT_UNMAPPED, addr, 0);
+			return 0xFF;
+		}
+		int page = addr >>> 8;
+		byte[] memory = readPages[page];
+		if (memory != null) {
+			return memory[readOffsets[page] + addr] & 0xFF;
+		}
+		return handlers[page].readByte(addr);
+	}
+
+	public void writeByte(int addr, int value) {
+		if (value > 0xFF) {
+			fault(FAULT_VALUE, addr, value);
+			value &= 0xFF;
+		}
+		if (addr >>> 16 != 0) {
+			fault(FAULT_UNMAPPED, addr, value);
+			return;
+		}
+		int page = addr >>> 8;
+		byte[] memory = writePages[page];
+		if (memory != null) {
+			memory[writeOffsets[page] + addr] = (byte) value;
+		} else {
+			handlers[page].writeByte(addr, value);
+		}
+	}
+
+	private class CartHandler implements MemoryHandler {
+
+		@Override
+		public int readByte(int addr) {
+			return rom.get(readOffsets[addr >>> 8] + addr) & 0xFF;
+		}
+
+		@Override
+		public void writeByte(int addr, int value) {
+			if (bankController.writeByte(addr, value)) {
+				switchBanks();
 			} else {
-				return io[addr - 0xFF00];
+				fault(FAULT_READ_ONLY, addr, value);
 			}
-		} else if (addr >= 0xFF80 && addr <= 0xFFFF) {
-			return zeroRAM[addr - 0xFF80];
-		} else {
-			throw new IllegalMemoryAccessException("Memory address "
-					+ Integer.toHexString(addr) + " is not accessible.");
+		}
+	}
+
+	// cart RAM that is saved or disabled
+	private class CartRAMHandler implements MemoryHandler {
+
+		@Override
+		public int readByte(int addr) {
+			return 0xFF;
 		}
 
+		@Override
+		public void writeByte(int addr, int value) {
+			int page = addr >>> 8;
+			if (readPages[page] != null) {
+				int index = writeOffsets[page] + addr;
+				readPages[page][index] = (byte) value;
+				cartRAM.written(index);
+			}
+		}
 	}
 
-	public void writeByte(int addr, int value)
-			throws IllegalMemoryAccessException {
-		if (value > 0xFF) {
-			throw new UnsupportedOperationException("Value " + value
-					+ " is too big to be written to address "
-					+ Integer.toHexString(addr));
-		}
-		if (addr <= 0x00FF && inBios) {
-			bios[addr] = (short) value;
-		} else if (addr <= 0x3FFF) {
-			if (addr != 0x2000) {
-				throw new IllegalMemoryAccessException("Address "
-						+ Integer.toHexString(addr)
-						+ " is ROM memory. It can not be written.");
+	// OAM and the unusable area behind it
+	private class OAMHandler implements MemoryHandler {
+
+		@Override
+		public int readByte(int addr) {
+			if (addr <= 0xFE9F) {
+				return ram[OAM + addr - 0xFE00] & 0xFF;
+			}
+			fault(FAULT_UNMAPPED, addr, 0);
+			return 0xFF;
+		}
+
+		@Override
+		public void writeByte(int addr, int value) {
+			if (addr <= 0xFE9F) {
+				ram[OAM + addr - 0xFE00] = (byte) value;
 			} else {
-				cart0[addr] = (short) value;
+				fault(FAULT_UNMAPPED, addr, value);
 			}
-		} else if (addr >= 0x4000 && addr <= 0x7FFF) {
-			throw new IllegalMemoryAccessException("Address "
-					+ Integer.toHexString(addr)
-					+ " is ROM memory. It can not be written.");
-			// cart1[addr - 0x4000] = (short) value;
-		} else if (addr >= 0x8000 && addr <= 0x9FFF) {
-			gpu.writeByte(addr, value);
-		} else if (addr >= 0xA000 && addr <= 0xBFFF) {
-			extRAM[addr - 0xA000] = (short) value;
-		} else if (addr >= 0xC000 && addr <= 0xDFFF) {
-			RAM[addr - 0xC000] = (short) value;
-		} else if (addr >= 0xE000 && addr <= 0xFDFF) {
-			RAM[addr - 0xE000] = (short) value;
-		} else if (addr >= 0xFE00 && addr <= 0xFE9F) {
-			graphics[addr - 0xFE00] = (short) value;
-		} else if (addr >= 0xFF00 && addr <= 0xFF7F) {
-			if (addr >= 0xFF40) {
+		}
+	}
+
+	// I/O registers, high RAM and the interrupt enable register
+	private class IOHandler implements MemoryHandler {
+
+		@Override
+		public int readByte(int addr) {
+			if (addr == 0xFFFF) {
+				return interrupts.getEnabled();
+			} else if (addr >= 0xFF80) {
+				return ram[HIGH_RAM + addr - 0xFF80] & 0xFF;
+			} else if (addr >= 0xFF40) {
+				return gpu.readByte(addr);
+			} else if (addr >= 0xFF04 && addr <= 0xFF07) {
+				return timer.readByte(addr);
+			} else if (addr == 0xFF0F) {
+				return interrupts.getRequested();
+			} else {
+				return ram[IO + addr - 0xFF00] & 0xFF;
+			}
+		}
+
+		@Override
+		public void writeByte(int addr, int value) {
+			if (addr == 0xFFFF) {
+				interrupts.setEnabled(value);
+			} else if (addr >= 0xFF80) {
+				ram[HIGH_RAM + addr - 0xFF80] = (byte) value;
+			} else if (addr == 0xFF46) {
+				// the transfer takes 160 cycles, OAM is updated when it is done
+				dmaSource = value << 8;
+				scheduler.schedule(dmaDone, scheduler.now() + 160);
+			} else if (addr >= 0xFF40) {
 				gpu.writeByte(addr, value);
+			} else if (addr >= 0xFF04 && addr <= 0xFF07) {
+				timer.writeByte(addr, value);
+			} else if (addr == 0xFF0F) {
+				interrupts.setRequested(value);
 			} else {
-				io[addr - 0xFF00] = (short) value;
+				ram[IO + addr - 0xFF00] = (byte) value;
+			}
+		}
+	}
+
+	/**
+	 * Writes value to length bytes starting at addr in one go. Returns false
+	 * without writing anything if the range is not in a single block of
+	 * video, external or work RAM.
+	 */
+	public boolean fill(int addr, int length, int value) {
+		if (!isContiguous(addr, length, true)) {
+			return false;
+		}
+		int index = backingIndex(addr, true);
+		Arrays.fill(backingArray(addr, true), index, index + length,
+				(byte) value);
+		return true;
+	}
+
+	/**
+	 * Copies length bytes from src to dst in one go, with the same result as
+	 * copying them one by one upwards. Returns false without copying anything
+	 * if that is not possible, because either range is outside a single block
+	 * of ROM or RAM or dst overlaps the source bytes not yet copied.
+	 */
+	public boolean copy(int src, int dst, int length) {
+		if (!isContiguous(src, length, false)
+				|| !isContiguous(dst, length, true)) {
+			return false;
+		}
+		byte[] from = backingArray(src, false);
+		byte[] to = backingArray(dst, true);
+		int srcIndex = backingIndex(src, false);
+		int dstIndex = backingIndex(dst, true);
+		if (from == null) {
+			// ROM that is mapped from its file
+			for (int i = 0; i < length; i++) {
+				to[dstIndex + i] = rom.get(srcIndex + i);
+			}
+			return true;
+		}
+		if (from == to && dstIndex > srcIndex
+				&& dstIndex < srcIndex + length) {
+			return false;
+		}
+		System.arraycopy(from, srcIndex, to, dstIndex, length);
+		return true;
+	}
+
+	private boolean isContiguous(int addr, int length, boolean write) {
+		int end = addr + length - 1;
+		if (end > 0xFFFF) {
+			return false;
+		}
+		byte[][] pages = write ? writePages : readPages;
+		int[] offsets = write ? writeOffsets : readOffsets;
+		int first = addr >>> 8;
+		// null ROM pages are read from the mapped ROM file
+		if (pages[first] == null && (write || first >= 0x80)) {
+			return false;
+		}
+		for (int page = first + 1; page <= end >>> 8; page++) {
+			if (pages[page] != pages[first]
+					|| offsets[page] != offsets[first]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// the array that can be accessed directly for addr, ROM only for reading
+	private byte[] backingArray(int addr, boolean write) {
+		return (write ? writePages : readPages)[addr >>> 8];
+	}
+
+	private int backingIndex(int addr, boolean write) {
+		return (write ? writeOffsets : readOffsets)[addr >>> 8] + addr;
+	}
+
+	private void copyOAM() {
+		for (int i = 0; i < 0xA0; i++) {
+			ram[OAM + i] = (byte) readByte(dmaSource + i);
+		}
+	}
+
+	private void switchBanks() {
+		int bank = bankController.getLowBank() % romBanks;
+		if (bank != lowRomBank) {
+			lowRomBank = bank;
+			mapROM(0x00, bank);
+			mapBios();
+		}
+		bank = bankController.getHighBank() % romBanks;
+		if (bank != romBank) {
+			romBank = bank;
+			mapROM(0x40, bank);
+		}
+		if (cartRAM != null) {
+			bank = bankController.isRamEnabled() ? bankController.getRamBank()
+					% Math.max(1, cartRAM.getSize() / CartRAM.BANK_SIZE) : -1;
+			if (bank != ramBank) {
+				ramBank = bank;
+				mapCartRAM();
 			}
-		} else if (addr >= 0xFF80 && addr <= 0xFFFF) {
-			zeroRAM[addr - 0xFF80] = (short) value;
-		} else {
-			throw new IllegalMemoryAccessException("Memory address "
-					+ Integer.toHexString(addr) + " is not accessible.");
 		}
 	}
 
 	public void loadCart(Cart c) {
-		cart0 = c.getBank(0);
-		cart1 = c.getBank(1);
+		loadCart(c, CartRAM.create(c));
+	}
+
+	/**
+	 * Inserts a cart with the given RAM, which may be null if it has none.
+	 * The RAM is disabled until the game enables it.
+	 */
+	public void loadCart(Cart c, CartRAM ram) {
+		cart = c;
+		rom = c.getROM();
+		romArray = rom.hasArray() ? rom.array() : null;
+		romBanks = c.getBankCount();
+		bankController = BankController.create(c.getType());
+		lowRomBank = 0;
+		romBank = 1;
+		mapCart();
+		if (cartRAM != null && ram == null) {
+			mapRAM(0xA0, 0xC0, EXTERNAL_RAM);
+		}
+		cartRAM = ram;
+		ramBank = -1;
+		mapCartRAM();
 	}
 }
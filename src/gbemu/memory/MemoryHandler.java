@@ -0,0 +1,13 @@
+package gbemu.memory;
+
+/**
+ * Handles accesses to a page of memory that is not simply backed by an
+ * array, e.g. because accesses have side effects.
+ */
+interface MemoryHandler {
+
+	int readByte(int addr);
+
+	void writeByte(int addr, int value);
+
+}
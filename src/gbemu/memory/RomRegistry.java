@@ -0,0 +1,138 @@
+package gbemu.memory;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Hands out one shared Cart per ROM content, keyed by its SHA-256 hash, so
+ * all emulators running the same game share a single ROM image. A Cart is
+ * only kept while some emulator still uses it.
+ * 
+ * Hashing reads the whole image, so files are remembered by path, size and
+ * modification time and a file that has not changed is only hashed once
+ * while its cart is in use.
+ */
+public class RomRegistry {
+
+	private static final Map<String, CartReference> carts =
+			new ConcurrentHashMap<>();
+	// path, size and modification time of a ROM file to the hash of it
+	private static final Map<String, String> files = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<Cart> released =
+			new ReferenceQueue<>();
+
+	private static class CartReference extends WeakReference<Cart> {
+
+		final String hash;
+
+		CartReference(String hash, Cart cart) {
+			super(cart, released);
+			this.hash = hash;
+		}
+	}
+
+	private RomRegistry() {
+	}
+
+	/**
+	 * Returns the shared cart for a ROM image.
+	 */
+	public static Cart get(byte[] rom) {
+		return get(hash(ByteBuffer.wrap(rom)), () -> new Cart(rom));
+	}
+
+	/**
+	 * Returns the shared cart for a ROM file. Files that can be mapped are
+	 * hashed through the mapping, so the image is never read into the heap.
+	 * The cart of a file that has not changed since it was hashed is
+	 * returned without reading the file.
+	 */
+	public static Cart get(String fileName) throws IOException {
+		Path path = Paths.get(fileName).toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(path,
+				BasicFileAttributes.class);
+		String file = path + ":" + attributes.size() + ":"
+				+ attributes.lastModifiedTime().toMillis();
+		String hash = files.get(file);
+		CartReference reference = hash != null ? carts.get(hash) : null;
+		Cart shared = reference != null ? reference.get() : null;
+		if (shared != null) {
+			return shared;
+		}
+		Cart cart;
+		if (Cart.isMappable(attributes.size())) {
+			Cart mapped = new Cart(path.toString());
+			hash = hash(mapped.getROM());
+			cart = get(hash, () -> mapped);
+		} else {
+			byte[] rom = Files.readAllBytes(path);
+			hash = hash(ByteBuffer.wrap(rom));
+			cart = get(hash, () -> new Cart(rom));
+		}
+		files.put(file, hash);
+		return cart;
+	}
+
+	private static Cart get(String hash, Supplier<Cart> factory) {
+		expungeReleased();
+		Cart[] result = new Cart[1];
+		carts.compute(hash, (key, reference) -> {
+			result[0] = reference != null ? reference.get() : null;
+			if (result[0] != null) {
+				return reference;
+			}
+			result[0] = factory.get();
+			return new CartReference(hash, result[0]);
+		});
+		return result[0];
+	}
+
+	/**
+	 * Returns the number of ROM images currently shared.
+	 */
+	public static int size() {
+		expungeReleased();
+		return carts.size();
+	}
+
+	private static void expungeReleased() {
+		CartReference reference;
+		while ((reference = (CartReference) released.poll()) != null) {
+			if (carts.remove(reference.hash, reference)) {
+				files.values().removeIf(reference.hash::equals);
+			}
+		}
+	}
+
+	private static String hash(ByteBuffer rom) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		digest.update(rom.duplicate());
+		return hex(digest.digest());
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder result = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			result.append(String.format("%02x", b));
+		}
+		return result.toString();
+	}
+
+}
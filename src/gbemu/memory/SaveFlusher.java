@@ -0,0 +1,61 @@
+package gbemu.memory;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the battery backed cart RAM of all emulators from one background
+ * thread, so the emulation threads never wait for the disk. RAM that is
+ * still open is also saved when the VM exits. RAM is only held weakly, the
+ * changes since the last flush are lost if it is collected without being
+ * closed.
+ */
+final class SaveFlusher {
+
+	private static final long INTERVAL_MILLIS = 1000;
+
+	private static final Set<CartRAM> open = Collections.newSetFromMap(
+			Collections.synchronizedMap(new WeakHashMap<>()));
+	private static ScheduledExecutorService executor;
+
+	private SaveFlusher() {
+	}
+
+	static synchronized void register(CartRAM ram) {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "cart RAM flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.scheduleWithFixedDelay(SaveFlusher::flushAll,
+					INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(SaveFlusher::flushAll, "cart RAM saver"));
+		}
+		open.add(ram);
+	}
+
+	static void unregister(CartRAM ram) {
+		open.remove(ram);
+	}
+
+	private static void flushAll() {
+		CartRAM[] rams;
+		synchronized (open) {
+			rams = open.toArray(new CartRAM[0]);
+		}
+		for (CartRAM ram : rams) {
+			try {
+				ram.flush();
+			} catch (RuntimeException e) {
+				// keep saving the others
+				e.printStackTrace();
+			}
+		}
+	}
+}
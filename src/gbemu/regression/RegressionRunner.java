@@ -0,0 +1,199 @@
+package gbemu.regression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import gbemu.Emulator;
+import gbemu.cpu.IllegalRegisterAccessException;
+import gbemu.cpu.UnsupportedOpcodeException;
+import gbemu.memory.IllegalMemoryAccessException;
+
+/**
+ * Runs every ROM in a directory on headless emulators in parallel and
+ * writes one line per ROM with its frame count, instruction count,
+ * framebuffer hash and faults to a summary file.
+ * 
+ * Usage: RegressionRunner romDirectory summaryFile [frames [strict]]
+ */
+public class RegressionRunner {
+
+	private static final String[] EXTENSIONS = { ".gb", ".gbc" };
+
+	private final int frames;
+	private final Predicate<Emulator> stopCondition;
+	private File saveDirectory;
+	private boolean strict;
+
+	/**
+	 * Creates a runner that runs each ROM for the given number of frames, or
+	 * until stopCondition, which is checked after every frame, is true.
+	 */
+	public RegressionRunner(int frames, Predicate<Emulator> stopCondition) {
+		this.frames = frames;
+		this.stopCondition = stopCondition;
+	}
+
+	/**
+	 * Saves the battery backed cart RAM of each ROM to a .sav file in
+	 * directory. By default it is not saved, so that results do not depend
+	 * on earlier runs.
+	 */
+	public void setSaveDirectory(File directory) {
+		saveDirectory = directory;
+	}
+
+	/**
+	 * Runs the ROMs with strict memory and register validation, so the
+	 * first invalid access ends a run with an error, see
+	 * Emulator.setStrict().
+	 */
+	public void setStrict(boolean strict) {
+		this.strict = strict;
+	}
+
+	/**
+	 * Runs all ROMs in directory and returns their results, sorted by name.
+	 */
+	public List<RomResult> run(File directory, ForkJoinPool pool) {
+		File[] roms = directory.listFiles((dir, name) -> {
+			for (String extension : EXTENSIONS) {
+				if (name.toLowerCase().endsWith(extension)) {
+					return true;
+				}
+			}
+			return false;
+		});
+		if (roms == null) {
+			throw new IllegalArgumentException(directory
+					+ " is not a directory");
+		}
+		Arrays.sort(roms);
+		return pool.invoke(new RunTask(roms, 0, roms.length));
+	}
+
+	RomResult run(File rom) {
+		Emulator emulator;
+		try {
+			emulator = new Emulator(rom.getPath(), saveFile(rom));
+		} catch (IOException | RuntimeException e) {
+			return new RomResult(rom.getName(), 0, 0, 0, null,
+					"Could not load ROM: " + e);
+		}
+
+		String error = null;
+		try {
+			emulator.setStrict(strict);
+			for (int i = 0; i < frames; i++) {
+				emulator.runFrames(1);
+				if (stopCondition != null && stopCondition.test(emulator)) {
+					break;
+				}
+			}
+		} catch (UnsupportedOpcodeException e) {
+			error = "Unsupported opcode: " + e.getMessage();
+		} catch (IllegalMemoryAccessException e) {
+			error = "Illegal memory access: " + e.getMessage();
+		} catch (IllegalRegisterAccessException e) {
+			error = "Illegal register access: " + e.getMessage();
+		} catch (RuntimeException e) {
+			error = e.toString();
+		} finally {
+			try {
+				emulator.close();
+			} catch (RuntimeException e) {
+				if (error == null) {
+					error = "Could not save cart RAM: " + e;
+				}
+			}
+		}
+		return new RomResult(rom.getName(), emulator.getFrameCount(),
+				emulator.getInstructionCount(),
+				Arrays.hashCode(emulator.getFrameBuffer()),
+				emulator.getMemoryFault(), error);
+	}
+
+	private String saveFile(File rom) {
+		if (saveDirectory == null) {
+			return null;
+		}
+		String name = rom.getName().replaceFirst("\\.[^.]*$", "");
+		return new File(saveDirectory, name + ".sav").getPath();
+	}
+
+	/**
+	 * Splits the ROMs in halves until a single one is left and runs it.
+	 */
+	private class RunTask extends RecursiveTask<List<RomResult>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final File[] roms;
+		private final int from;
+		private final int to;
+
+		RunTask(File[] roms, int from, int to) {
+			this.roms = roms;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<RomResult> compute() {
+			List<RomResult> results = new ArrayList<>();
+			if (to - from <= 1) {
+				if (to > from) {
+					results.add(run(roms[from]));
+				}
+				return results;
+			}
+			int middle = (from + to) >>> 1;
+			RunTask first = new RunTask(roms, from, middle);
+			first.fork();
+			List<RomResult> second = new RunTask(roms, middle, to).compute();
+			results.addAll(first.join());
+			results.addAll(second);
+			return results;
+		}
+
+	}
+
+	public static void writeSummary(List<RomResult> results, File file)
+			throws IOException {
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("rom\tframes\tinstructions\tframebuffer"
+					+ "\tmemory fault\terror");
+			for (RomResult result : results) {
+				out.println(result.toLine());
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: RegressionRunner romDirectory "
+					+ "summaryFile [frames [strict]]");
+			return;
+		}
+		int frames = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+		RegressionRunner runner = new RegressionRunner(frames, null);
+		runner.setStrict(args.length > 3 && args[3].equals("strict"));
+
+		long start = System.nanoTime();
+		List<RomResult> results = runner.run(new File(args[0]),
+				ForkJoinPool.commonPool());
+		writeSummary(results, new File(args[1]));
+
+		long failures = results.stream().filter(RomResult::isFailure)
+				.count();
+		System.out.println(results.size() + " ROMs, " + failures
+				+ " failed, " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+}
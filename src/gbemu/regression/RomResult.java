@@ -0,0 +1,41 @@
+package gbemu.regression;
+
+/**
+ * The outcome of running one ROM.
+ */
+public class RomResult {
+
+	final String rom;
+	final long frames;
+	final long instructions;
+	final int framebufferHash;
+	// first invalid memory access, null if none
+	final String memoryFault;
+	// exception that ended the run early, null if none
+	final String error;
+
+	RomResult(String rom, long frames, long instructions,
+			int framebufferHash, String memoryFault, String error) {
+		this.rom = rom;
+		this.frames = frames;
+		this.instructions = instructions;
+		this.framebufferHash = framebufferHash;
+		this.memoryFault = memoryFault;
+		this.error = error;
+	}
+
+	public boolean isFailure() {
+		return error != null;
+	}
+
+	/**
+	 * Returns the result as one tab separated line of the summary file.
+	 */
+	String toLine() {
+		return rom + "\t" + frames + "\t" + instructions + "\t"
+				+ String.format("%08x", framebufferHash) + "\t"
+				+ (memoryFault != null ? memoryFault : "-") + "\t"
+				+ (error != null ? error : "-");
+	}
+
+}
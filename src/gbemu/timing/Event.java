@@ -0,0 +1,37 @@
+package gbemu.timing;
+
+/**
+ * Something that happens at a fixed point in emulated time. Events are
+ * created once and scheduled again every time they are due.
+ */
+public class Event {
+
+	private final Runnable action;
+
+	// position in the scheduler's heap, -1 if not scheduled
+	int index;
+	long time;
+
+	public Event(Runnable action) {
+		this.action = action;
+		index = -1;
+	}
+
+	/**
+	 * Returns the time the event is or was last scheduled for. Events that
+	 * repeat should be scheduled relative to it, since the scheduler may run
+	 * an event a few cycles late.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	public boolean isScheduled() {
+		return index >= 0;
+	}
+
+	void fire() {
+		action.run();
+	}
+
+}
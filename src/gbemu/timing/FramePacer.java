@@ -0,0 +1,92 @@
+package gbemu.timing;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Holds emulation at the Game Boy frame rate of 4194304 / 70224 Hz (about
+ * 59.73 Hz). sync() is called once per frame and parks the thread until
+ * shortly before the frame is due, then spins for the rest so the frame
+ * starts on time despite the coarse timer resolution of parkNanos.
+ * 
+ * Deadlines are absolute, so small delays do not add up to drift. When the
+ * host falls behind, frames are reported as dropped until emulation has
+ * caught up. If it falls too far behind, the schedule is restarted instead.
+ */
+public class FramePacer {
+
+	public static final long FRAME_NANOS = 1000000000L * 70224 / 4194304;
+
+	// time before the deadline that is spent spinning instead of parking
+	private static final long SPIN_NANOS = 1000000;
+	// frames to fall behind before giving up on catching up
+	private static final int MAX_LAG = 6;
+
+	private long deadline;
+	private long frames;
+	private long dropped;
+	private long resyncs;
+	private long lateness;
+
+	/**
+	 * Waits until the current frame is due. Returns whether the next frame
+	 * should be drawn, which is false while emulation is behind real time.
+	 */
+	public boolean sync() {
+		frames++;
+		long now = System.nanoTime();
+		if (deadline == 0) {
+			deadline = now + FRAME_NANOS;
+			return true;
+		}
+
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+			LockSupport.parkNanos(remaining - SPIN_NANOS);
+		}
+		while (deadline - System.nanoTime() > 0) {
+			Thread.yield();
+		}
+
+		now = System.nanoTime();
+		lateness = now - deadline;
+		deadline += FRAME_NANOS;
+		if (lateness > MAX_LAG * FRAME_NANOS) {
+			deadline = now + FRAME_NANOS;
+			resyncs++;
+			return true;
+		}
+		if (now > deadline) {
+			dropped++;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Starts a new schedule with the next call to sync, for example after
+	 * the emulation was paused.
+	 */
+	public void reset() {
+		deadline = 0;
+	}
+
+	public long getFrames() {
+		return frames;
+	}
+
+	public long getDroppedFrames() {
+		return dropped;
+	}
+
+	public long getResyncs() {
+		return resyncs;
+	}
+
+	/**
+	 * Returns how late the last frame was in nanoseconds.
+	 */
+	public long getLateness() {
+		return lateness;
+	}
+
+}
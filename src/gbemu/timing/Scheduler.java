@@ -0,0 +1,119 @@
+package gbemu.timing;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the emulated time in machine cycles and runs events when it reaches
+ * them. Events are kept in a binary heap ordered by their due time, so
+ * advancing the time only costs a comparison with the earliest one.
+ */
+public class Scheduler {
+
+	private long now;
+	// due time of the earliest event
+	private long next;
+
+	private Event[] heap;
+	private int size;
+
+	public Scheduler() {
+		heap = new Event[8];
+		next = Long.MAX_VALUE;
+	}
+
+	public long now() {
+		return now;
+	}
+
+	public void advance(int cycles) {
+		now += cycles;
+		if (now >= next) {
+			runEvents();
+		}
+	}
+
+	/**
+	 * Returns the number of cycles until the next event is due, or
+	 * Integer.MAX_VALUE if there is none.
+	 */
+	public int cyclesUntilNextEvent() {
+		return (int) Math.min(next - now, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Schedules event for the given time, moving it if it is already
+	 * scheduled.
+	 */
+	public void schedule(Event event, long time) {
+		if (event.index < 0) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			event.index = size;
+			heap[size++] = event;
+		}
+		event.time = time;
+		siftDown(siftUp(event.index));
+		next = heap[0].time;
+	}
+
+	public void cancel(Event event) {
+		if (event.index < 0) {
+			return;
+		}
+		int index = event.index;
+		Event last = heap[--size];
+		heap[size] = null;
+		event.index = -1;
+		if (last != event) {
+			heap[index] = last;
+			last.index = index;
+			siftDown(siftUp(index));
+		}
+		next = size > 0 ? heap[0].time : Long.MAX_VALUE;
+	}
+
+	private void runEvents() {
+		while (size > 0 && heap[0].time <= now) {
+			Event event = heap[0];
+			cancel(event);
+			event.fire();
+		}
+	}
+
+	private int siftUp(int index) {
+		Event event = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (heap[parent].time <= event.time) {
+				break;
+			}
+			move(heap[parent], index);
+			index = parent;
+		}
+		move(event, index);
+		return index;
+	}
+
+	private void siftDown(int index) {
+		Event event = heap[index];
+		int child;
+		while ((child = 2 * index + 1) < size) {
+			if (child + 1 < size && heap[child + 1].time < heap[child].time) {
+				child++;
+			}
+			if (event.time <= heap[child].time) {
+				break;
+			}
+			move(heap[child], index);
+			index = child;
+		}
+		move(event, index);
+	}
+
+	private void move(Event event, int index) {
+		heap[index] = event;
+		event.index = index;
+	}
+
+}
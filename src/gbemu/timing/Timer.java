@@ -0,0 +1,99 @@
+package gbemu.timing;
+
+/**
+ * DIV and the programmable timer TIMA/TMA/TAC at 0xFF04-0xFF07. Neither
+ * register is counted up cycle by cycle, both are derived from the
+ * scheduler's time when read. Only the TIMA overflow is an event.
+ */
+public class Timer {
+
+	// machine cycles per TIMA increment, by the clock select bits of TAC
+	private static final int[] PERIODS = { 256, 4, 16, 64 };
+
+	private Scheduler scheduler;
+	private Runnable interrupt;
+	private Event overflow;
+
+	// time of the last DIV reset
+	private long divStart;
+	// TIMA value at time start
+	private int counter;
+	private long start;
+	private int modulo;
+	private int control;
+
+	/**
+	 * Creates a timer that calls interrupt whenever TIMA overflows.
+	 */
+	public Timer(Scheduler scheduler, Runnable interrupt) {
+		this.scheduler = scheduler;
+		this.interrupt = interrupt;
+		overflow = new Event(this::overflow);
+	}
+
+	public int readByte(int addr) {
+		switch (addr) {
+		case 0xFF04:
+			return (int) ((scheduler.now() - divStart) >>> 6) & 0xFF;
+		case 0xFF05:
+			return counter();
+		case 0xFF06:
+			return modulo;
+		default:
+			return control;
+		}
+	}
+
+	public void writeByte(int addr, int value) {
+		switch (addr) {
+		case 0xFF04:
+			divStart = scheduler.now();
+			break;
+		case 0xFF05:
+			counter = value;
+			start = scheduler.now();
+			reschedule();
+			break;
+		case 0xFF06:
+			modulo = value;
+			break;
+		default:
+			counter = counter();
+			start = scheduler.now();
+			control = value & 0x07;
+			reschedule();
+			break;
+		}
+	}
+
+	private boolean enabled() {
+		return (control & 0x04) != 0;
+	}
+
+	private int counter() {
+		if (!enabled()) {
+			return counter;
+		}
+		// increments happen whenever the time passes a multiple of the period
+		int period = PERIODS[control & 0x03];
+		return (int) (counter + scheduler.now() / period - start / period);
+	}
+
+	private void reschedule() {
+		if (!enabled()) {
+			scheduler.cancel(overflow);
+			return;
+		}
+		int period = PERIODS[control & 0x03];
+		scheduler.schedule(overflow, (start / period + 0x100 - counter)
+				* period);
+	}
+
+	private void overflow() {
+		counter = modulo;
+		start = overflow.getTime();
+		reschedule();
+		interrupt.run();
+	}
+
+}